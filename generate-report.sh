@@ -1,4 +1,32 @@
 #!/bin/bash
 
-mvn clean test
-mvn antrun:run
\ No newline at end of file
+if [ "$1" == "all" ]; then
+    # Keeps testing the other providers when one fails, the report renders whichever providers ran
+    mvn -T 3 --fail-at-end -f providers/pom.xml clean verify
+    mvn -f providers/report/pom.xml clean verify
+elif [ "$1" == "databases" ]; then
+    runs=()
+    for provider in eclipselink hibernate; do
+        for database in h2 hsqldb derby; do
+            mvn clean test -P $provider,$database
+            rm -rf reports/$provider-$database
+            mkdir -p reports
+            cp -r target/surefire-reports reports/$provider-$database
+            runs+=(reports/$provider-$database)
+        done
+    done
+    mvn exec:java -Dexec.args="${runs[*]} reports/databases.adoc"
+elif [ "$1" == "sql" ]; then
+    runs=()
+    for provider in eclipselink hibernate; do
+        mvn clean test -P $provider -DcaptureSql=true
+        rm -rf reports/$provider
+        mkdir -p reports
+        cp -r target/surefire-reports reports/$provider
+        runs+=(reports/$provider)
+    done
+    mvn exec:java@sql-shapes -Dexec.args="${runs[*]} reports/sql-shapes.adoc"
+else
+    mvn clean test
+    mvn exec:java
+fi
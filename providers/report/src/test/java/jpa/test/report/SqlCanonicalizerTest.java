@@ -0,0 +1,152 @@
+package jpa.test.report;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The pairs are the SQL EclipseLink 2.6 and Hibernate 5.2 generated for the same JPQL query, as captured with <code>-DcaptureSql=true</code>.
+ */
+public class SqlCanonicalizerTest {
+
+    @Test
+    public void aliases() {
+        // SELECT b.name, p.name FROM JoinedBase b LEFT JOIN b.parent p WHERE p.value = 1
+        assertCanonical(
+            "SELECT JOINED_BASE#1.NAME, JOINED_BASE#2.NAME FROM JOINED_BASE#1 LEFT JOIN JOINED_BASE#2 ON JOINED_BASE#1.PARENT_ID = JOINED_BASE#2.ID WHERE ? = JOINED_BASE#2.VALUE",
+            1, 0, 0,
+            "SELECT t0.NAME, t1.NAME FROM {oj joined_base t0 LEFT OUTER JOIN joined_base t1 ON (t1.ID = t0.PARENT_ID)} WHERE (t1.VALUE = 1)",
+            "select joinedbase0_.name as col_0_0_, joinedbase1_.name as col_1_0_ from joined_base joinedbase0_ left outer join joined_base joinedbase1_ on joinedbase0_.parent_id=joinedbase1_.id where joinedbase1_.value=1"
+        );
+    }
+
+    @Test
+    public void outerJoinEscape() {
+        // SELECT b.name, p.name, c.name FROM SingleTableBase b LEFT JOIN b.parent p LEFT JOIN b.children c
+        assertCanonical(
+            "SELECT SINGLE_TABLE_BASE#1.NAME, SINGLE_TABLE_BASE#2.NAME, SINGLE_TABLE_BASE#3.NAME FROM SINGLE_TABLE_BASE#1"
+                + " LEFT JOIN SINGLE_TABLE_BASE#2 ON SINGLE_TABLE_BASE#1.PARENT_ID = SINGLE_TABLE_BASE#2.ID"
+                + " LEFT JOIN SINGLE_TABLE_BASE#3 ON SINGLE_TABLE_BASE#1.ID = SINGLE_TABLE_BASE#3.PARENT_ID",
+            2, 0, 0,
+            "SELECT t0.NAME, t1.NAME, t2.NAME FROM {oj single_table_base t0 LEFT OUTER JOIN single_table_base t1 ON (t1.ID = t0.PARENT_ID) LEFT OUTER JOIN single_table_base t2 ON (t2.PARENT_ID = t0.ID)}",
+            "select singletabl0_.name as col_0_0_, singletabl1_.name as col_1_0_, children2_.name as col_2_0_ from single_table_base singletabl0_"
+                + " left outer join single_table_base singletabl1_ on singletabl0_.parent_id=singletabl1_.id"
+                + " left outer join single_table_base children2_ on singletabl0_.id=children2_.parent_id"
+        );
+    }
+
+    @Test
+    public void joinOrder() {
+        // SELECT b.name FROM JoinedBase b WHERE TYPE(b) = JoinedSub1 by Hibernate and with the subclass tables joined the other way round
+        assertCanonical(
+            "SELECT JOINED_BASE#1.NAME FROM JOINED_BASE#1 LEFT JOIN JOINED_SUB_1#1 ON JOINED_BASE#1.ID = JOINED_SUB_1#1.ID LEFT JOIN JOINED_SUB_2#1 ON JOINED_BASE#1.ID = JOINED_SUB_2#1.ID"
+                + " WHERE ? = CASE WHEN JOINED_SUB_1#1.ID IS NOT NULL THEN ? WHEN JOINED_SUB_2#1.ID IS NOT NULL THEN ? WHEN JOINED_BASE#1.ID IS NOT NULL THEN ? END",
+            2, 0, 0,
+            "select joinedbase0_.name as col_0_0_ from joined_base joinedbase0_"
+                + " left outer join joined_sub_1 joinedbase0_1_ on joinedbase0_.id=joinedbase0_1_.id left outer join joined_sub_2 joinedbase0_2_ on joinedbase0_.id=joinedbase0_2_.id"
+                + " where case when joinedbase0_1_.id is not null then 1 when joinedbase0_2_.id is not null then 2 when joinedbase0_.id is not null then 0 end=1",
+            "select joinedbase0_.name as col_0_0_ from joined_base joinedbase0_"
+                + " left outer join joined_sub_2 joinedbase0_2_ on joinedbase0_.id=joinedbase0_2_.id left outer join joined_sub_1 joinedbase0_1_ on joinedbase0_.id=joinedbase0_1_.id"
+                + " where case when joinedbase0_1_.id is not null then 1 when joinedbase0_2_.id is not null then 2 when joinedbase0_.id is not null then 0 end=1"
+        );
+    }
+
+    @Test
+    public void conjunctOrder() {
+        // SELECT s.sub1Value FROM SingleTableSub1 s WHERE s.sub1Value BETWEEN 1 AND 101
+        assertCanonical(
+            "SELECT SUB1VALUE FROM SINGLE_TABLE_BASE#1 WHERE ? = DTYPE AND SUB1VALUE BETWEEN ? AND ?",
+            0, 0, 0,
+            "SELECT SUB1VALUE FROM single_table_base WHERE ((SUB1VALUE BETWEEN 1 AND 101) AND (DTYPE = 'SingleTableSub1'))",
+            "select singletabl0_.sub1Value as col_0_0_ from single_table_base singletabl0_ where singletabl0_.DTYPE='SingleTableSub1' and (singletabl0_.sub1Value between 1 and 101)"
+        );
+    }
+
+    @Test
+    public void between() {
+        // SELECT b.name FROM JoinedBase b WHERE b.value BETWEEN 1 AND 5 AND b.name = 'x'
+        assertCanonical(
+            "SELECT NAME FROM JOINED_BASE#1 WHERE ? = NAME AND VALUE BETWEEN ? AND ?",
+            0, 0, 0,
+            "SELECT NAME FROM joined_base WHERE ((VALUE BETWEEN 1 AND 5) AND (NAME = 'x'))",
+            "select joinedbase0_.name as col_0_0_ from joined_base joinedbase0_ where (joinedbase0_.value between 1 and 5) and joinedbase0_.name='x'"
+        );
+    }
+
+    @Test
+    public void disjunction() {
+        // SELECT b.name FROM SingleTableBase b WHERE (b.value = 1 OR b.value = 2) AND b.name = 'x'
+        assertCanonical(
+            "SELECT NAME FROM SINGLE_TABLE_BASE#1 WHERE (? = VALUE OR ? = VALUE) AND ? = NAME",
+            0, 0, 0,
+            "SELECT NAME FROM single_table_base WHERE (((VALUE = 1) OR (VALUE = 2)) AND (NAME = 'x'))",
+            "select singletabl0_.name as col_0_0_ from single_table_base singletabl0_ where (singletabl0_.value=1 or singletabl0_.value=2) and singletabl0_.name='x'"
+        );
+        // AND binds stronger than OR
+        Assert.assertEquals("SELECT NAME FROM SINGLE_TABLE_BASE#1 WHERE (? = NAME AND ? = VALUE OR ? = VALUE)",
+            SqlCanonicalizer.canonicalize("SELECT NAME FROM single_table_base WHERE VALUE = 1 OR VALUE = 2 AND NAME = 'x'").sql);
+    }
+
+    @Test
+    public void subquery() {
+        // SELECT b.name FROM JoinedBase b WHERE b.value IN (SELECT c.value FROM JoinedBase c WHERE c.name = 'x')
+        assertCanonical(
+            "SELECT JOINED_BASE#1.NAME FROM JOINED_BASE#1 WHERE JOINED_BASE#1.VALUE IN (SELECT VALUE FROM JOINED_BASE#2 WHERE ? = NAME)",
+            0, 1, 0,
+            "SELECT t0.NAME FROM joined_base t0 WHERE t0.VALUE IN (SELECT t1.VALUE FROM joined_base t1 WHERE (t1.NAME = 'x'))",
+            "select joinedbase0_.name as col_0_0_ from joined_base joinedbase0_ where joinedbase0_.value in (select joinedbase1_.value from joined_base joinedbase1_ where joinedbase1_.name='x')"
+        );
+    }
+
+    @Test
+    public void unionOrder() {
+        // SELECT b.name FROM TablePerClassBase b WHERE (b.value = 1 OR b.value = 2) AND b.name = 'x' by Hibernate and with the subclass tables united the other way round
+        String sub1 = "select id, name, value, embeddableParent, parent_id, null as sub2SomeValue, someValue, null as sub2Value, null as embeddableSub2Parent, null as parent2_id, null as relation2_id,"
+            + " sub1SomeValue, sub1Value, embeddableSub1Parent, parent1_id, relation1_id, 2 as clazz_ from table_per_class_sub_1";
+        String sub2 = "select id, name, value, embeddableParent, parent_id, sub2SomeValue, someValue, sub2Value, embeddableSub2Parent, parent2_id, relation2_id,"
+            + " null as sub1SomeValue, null as sub1Value, null as embeddableSub1Parent, null as parent1_id, null as relation1_id, 1 as clazz_ from table_per_class_sub_2";
+        String where = " ) tablepercl0_ where (tablepercl0_.value=1 or tablepercl0_.value=2) and tablepercl0_.name='x'";
+
+        SqlCanonicalizer.Shape shape = assertCanonical(
+            null,
+            0, 1, 1,
+            "select tablepercl0_.name as col_0_0_ from ( " + sub2 + " union all " + sub1 + where,
+            "select tablepercl0_.name as col_0_0_ from ( " + sub1 + " union all " + sub2 + where
+        );
+        Assert.assertTrue(shape.sql, shape.sql.startsWith("SELECT Q#1.NAME FROM (SELECT ?, EMBEDDABLEPARENT, EMBEDDABLESUB1PARENT, ID, NAME, NULL"));
+        Assert.assertTrue(shape.sql, shape.sql.contains(" FROM TABLE_PER_CLASS_SUB_1#1 UNION ALL SELECT "));
+        Assert.assertTrue(shape.sql, shape.sql.endsWith(" FROM TABLE_PER_CLASS_SUB_2#1) Q#1 WHERE (? = Q#1.VALUE OR ? = Q#1.VALUE) AND ? = Q#1.NAME"));
+    }
+
+    @Test
+    public void treatJoinDiffers() {
+        // SELECT s1.sub1Value FROM SingleTableBase b LEFT JOIN TREAT(b.parent AS SingleTableSub1) s1
+        SqlCanonicalizer.Shape eclipseLink = SqlCanonicalizer.canonicalize(
+            "SELECT t0.SUB1VALUE FROM {oj single_table_base t1 LEFT OUTER JOIN single_table_base t0 ON (t0.ID = t1.PARENT_ID)} WHERE (t0.DTYPE = 'SingleTableSub1')");
+        SqlCanonicalizer.Shape hibernate = SqlCanonicalizer.canonicalize(
+            "select singletabl1_.sub1Value as col_0_0_ from single_table_base singletabl0_ left outer join single_table_base singletabl1_ on singletabl0_.parent_id=singletabl1_.id and singletabl1_.DTYPE='SingleTableSub1'");
+
+        // EclipseLink restricts the type in the WHERE clause, which turns the left join into an inner join
+        Assert.assertEquals("SELECT SINGLE_TABLE_BASE#2.SUB1VALUE FROM SINGLE_TABLE_BASE#1 LEFT JOIN SINGLE_TABLE_BASE#2 ON SINGLE_TABLE_BASE#1.PARENT_ID = SINGLE_TABLE_BASE#2.ID WHERE ? = SINGLE_TABLE_BASE#2.DTYPE", eclipseLink.sql);
+        Assert.assertEquals("SELECT SINGLE_TABLE_BASE#2.SUB1VALUE FROM SINGLE_TABLE_BASE#1 LEFT JOIN SINGLE_TABLE_BASE#2 ON ? = SINGLE_TABLE_BASE#2.DTYPE AND SINGLE_TABLE_BASE#1.PARENT_ID = SINGLE_TABLE_BASE#2.ID", hibernate.sql);
+        Assert.assertEquals("1/0/0", eclipseLink.toString());
+        Assert.assertEquals("1/0/0", hibernate.toString());
+    }
+
+    /**
+     * Asserts that all given statements have the same canonical SQL, the expected one if not null, and the given counts.
+     */
+    private static SqlCanonicalizer.Shape assertCanonical(String expectedSql, int joins, int subqueries, int unions, String... statements) {
+        SqlCanonicalizer.Shape first = null;
+        for (String statement : statements) {
+            SqlCanonicalizer.Shape shape = SqlCanonicalizer.canonicalize(statement);
+            Assert.assertEquals(statement, expectedSql == null ? first == null ? shape.sql : first.sql : expectedSql, shape.sql);
+            Assert.assertEquals(statement, joins, shape.joins);
+            Assert.assertEquals(statement, subqueries, shape.subqueries);
+            Assert.assertEquals(statement, unions, shape.unions);
+            if (first == null) {
+                first = shape;
+            }
+        }
+        return first;
+    }
+}
@@ -0,0 +1,179 @@
+package jpa.test.enhancer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.datanucleus.enhancer.DataNucleusEnhancer;
+
+/**
+ * Enhances only the class files of the persistence unit that changed since the last run.
+ * The SHA-256 of every class file and mapping file is kept in a cache file, so a build that neither recompiled
+ * nor touched them skips the enhancer and a build that recompiled some entities only enhances those.
+ * A changed mapping file can change the metadata of every class, so then the whole persistence unit is enhanced.
+ * It's build tooling that runs on the test classpath, so it isn't part of the artifact.
+ *
+ * Usage: IncrementalEnhancer &lt;classes directory&gt; &lt;cache file&gt; [persistence unit name]
+ */
+public class IncrementalEnhancer {
+
+    private static final String PERSISTENCE_XML = "META-INF/persistence.xml";
+
+    private final File classesDirectory;
+    private final File cacheFile;
+    private final String persistenceUnitName;
+
+    public IncrementalEnhancer(File classesDirectory, File cacheFile, String persistenceUnitName) {
+        this.classesDirectory = classesDirectory;
+        this.cacheFile = cacheFile;
+        this.persistenceUnitName = persistenceUnitName;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: IncrementalEnhancer <classes directory> <cache file> [persistence unit name]");
+        }
+
+        String persistenceUnitName = args.length > 2 ? args[2] : "TestPU";
+        new IncrementalEnhancer(new File(args[0]), new File(args[1]), persistenceUnitName).enhance();
+    }
+
+    public int enhance() throws IOException, XMLStreamException {
+        long start = System.nanoTime();
+        List<String> resources = readPersistenceUnitResources();
+        Properties cache = loadCache();
+        List<String> changedResources = new ArrayList<>();
+
+        for (String resource : resources) {
+            if (!hash(new File(classesDirectory, resource)).equals(cache.getProperty(resource))) {
+                changedResources.add(resource);
+            }
+        }
+
+        long hashingMillis = (System.nanoTime() - start) / 1_000_000;
+
+        if (changedResources.isEmpty()) {
+            System.out.println("All " + resources.size() + " class and mapping files are up to date, checked in " + hashingMillis + " ms");
+            return 0;
+        }
+
+        long enhanceStart = System.nanoTime();
+        DataNucleusEnhancer enhancer = new DataNucleusEnhancer("JPA", null);
+        enhancer.setVerbose(false);
+        enhancer.setClassLoader(Thread.currentThread().getContextClassLoader());
+        List<String> changedClassFiles = getChangedClassFiles(changedResources);
+        if (changedClassFiles.size() < changedResources.size()) {
+            enhancer.addPersistenceUnit(persistenceUnitName);
+        } else {
+            enhancer.addFiles(changedClassFiles.toArray(new String[changedClassFiles.size()]));
+        }
+        int enhanced = enhancer.enhance();
+        long enhancingMillis = (System.nanoTime() - enhanceStart) / 1_000_000;
+
+        // The enhanced class files are the ones the next run compares against
+        for (String resource : resources) {
+            cache.setProperty(resource, hash(new File(classesDirectory, resource)));
+        }
+
+        storeCache(cache);
+        System.out.println("Enhanced " + enhanced + " classes of persistence unit " + persistenceUnitName + " because " + changedResources.size() + " of "
+                + resources.size() + " class and mapping files changed in " + enhancingMillis + " ms, change detection took " + hashingMillis + " ms");
+        return enhanced;
+    }
+
+    /**
+     * Returns the absolute paths of the given class files or fewer paths than resources if a mapping file is among them.
+     */
+    private List<String> getChangedClassFiles(List<String> changedResources) {
+        List<String> classFiles = new ArrayList<>(changedResources.size());
+        for (String resource : changedResources) {
+            if (resource.endsWith(".class")) {
+                classFiles.add(new File(classesDirectory, resource).getAbsolutePath());
+            }
+        }
+        return classFiles;
+    }
+
+    /**
+     * Returns the class files and mapping files of the persistence unit relative to the classes directory.
+     */
+    private List<String> readPersistenceUnitResources() throws IOException, XMLStreamException {
+        List<String> resources = new ArrayList<>();
+        int classCount = 0;
+        File persistenceXml = new File(classesDirectory, PERSISTENCE_XML);
+
+        try (InputStream is = new FileInputStream(persistenceXml)) {
+            XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(is);
+            boolean inUnit = false;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamReader.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("persistence-unit".equals(name)) {
+                        inUnit = persistenceUnitName.equals(reader.getAttributeValue(null, "name"));
+                    } else if (inUnit && "class".equals(name)) {
+                        resources.add(reader.getElementText().trim().replace('.', '/') + ".class");
+                        classCount++;
+                    } else if (inUnit && "mapping-file".equals(name)) {
+                        resources.add(reader.getElementText().trim());
+                    }
+                }
+            }
+
+            reader.close();
+        }
+
+        if (classCount == 0) {
+            throw new IllegalStateException("No classes found for persistence unit " + persistenceUnitName + " in " + persistenceXml);
+        }
+
+        return resources;
+    }
+
+    private Properties loadCache() throws IOException {
+        Properties cache = new Properties();
+        if (cacheFile.isFile()) {
+            try (InputStream is = new FileInputStream(cacheFile)) {
+                cache.load(is);
+            }
+        }
+        return cache;
+    }
+
+    private void storeCache(Properties cache) throws IOException {
+        cacheFile.getParentFile().mkdirs();
+        try (OutputStream os = new FileOutputStream(cacheFile)) {
+            cache.store(os, "SHA-256 of the enhanced class files and the mapping files");
+        }
+    }
+
+    private static String hash(File file) throws IOException {
+        if (!file.isFile()) {
+            return "";
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file.toPath()));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
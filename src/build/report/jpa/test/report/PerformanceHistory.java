@@ -0,0 +1,364 @@
+package jpa.test.report;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * An append-only CSV file with one row per run, provider, test case and metric.
+ * Every test run appends its metrics, a later run can then be compared to a baseline run e.g. before and after a provider upgrade.
+ * A metric regresses when its value grew by more than the threshold, compared are only the metrics matching the metrics pattern.
+ *
+ * Usage:
+ * PerformanceHistory append &lt;history file&gt; &lt;run&gt; &lt;surefire reports directory&gt;...
+ * PerformanceHistory compare &lt;history file&gt; &lt;baseline run|previous&gt; &lt;threshold percent&gt; &lt;metrics pattern&gt;
+ */
+public class PerformanceHistory {
+
+    private static final String HEADER = "run,timestamp,provider,version,class,test,strategy,metric,value,database";
+    private static final String[] STRATEGIES = { "Joined", "SingleTable", "TablePerClass" };
+    private static final int RUN = 0;
+    private static final int PROVIDER = 2;
+    private static final int VERSION = 3;
+    private static final int METRIC = 7;
+    private static final int VALUE = 8;
+    private static final int DATABASE = 9;
+
+    private final File historyFile;
+    private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+    public PerformanceHistory(File historyFile) {
+        this.historyFile = historyFile;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 4 && "append".equals(args[0])) {
+            List<File> reportsDirectories = new ArrayList<>();
+            for (int i = 3; i < args.length; i++) {
+                reportsDirectories.add(new File(args[i]));
+            }
+
+            PerformanceHistory history = new PerformanceHistory(new File(args[1]));
+            String run = args[2] == null || args[2].isEmpty() ? new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) : args[2];
+            int rows = history.append(run, reportsDirectories);
+            System.out.println("Appended " + rows + " metrics of run " + run + " to " + args[1]);
+        } else if (args.length == 5 && "compare".equals(args[0])) {
+            PerformanceHistory history = new PerformanceHistory(new File(args[1]));
+            List<String> regressions = history.compare(args[2], Double.parseDouble(args[3]), Pattern.compile(args[4]));
+            for (String regression : regressions) {
+                System.out.println(regression);
+            }
+            if (!regressions.isEmpty()) {
+                throw new IllegalStateException(regressions.size() + " metrics regressed by more than " + args[3] + "%");
+            }
+        } else {
+            throw new IllegalArgumentException("Usage: PerformanceHistory append <history file> <run> <surefire reports directory>...\n"
+                    + "       PerformanceHistory compare <history file> <baseline run|previous> <threshold percent> <metrics pattern>");
+        }
+    }
+
+    public int append(String run, List<File> reportsDirectories) throws IOException, XMLStreamException {
+        String timestamp = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date());
+        boolean exists = historyFile.isFile();
+        int rows = 0;
+
+        historyFile.getAbsoluteFile().getParentFile().mkdirs();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(historyFile, true), StandardCharsets.UTF_8))) {
+            if (!exists) {
+                writer.write(HEADER);
+                writer.write('\n');
+            }
+
+            for (File reportsDirectory : reportsDirectories) {
+                Map<String, String> times = readTimes(reportsDirectory);
+                for (File file : listFiles(reportsDirectory, "METRICS-")) {
+                    rows += appendMetrics(writer, run, timestamp, file, times);
+                }
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Returns the metrics of the latest run that regressed compared to the baseline run.
+     * The previous run is the latest run before it with the same provider and database.
+     */
+    public List<String> compare(String baselineRun, double thresholdPercent, final Pattern metrics) throws IOException {
+        // The first pass only determines the runs
+        final Map<String, Set<String>> runProviders = new LinkedHashMap<>();
+        readRows(new RowHandler() {
+            @Override
+            public void handle(String[] row) {
+                Set<String> providers = runProviders.get(row[RUN]);
+                if (providers == null) {
+                    providers = new LinkedHashSet<>();
+                    runProviders.put(row[RUN], providers);
+                }
+                providers.add(provider(row));
+            }
+        });
+
+        if (runProviders.isEmpty()) {
+            throw new IllegalStateException("No runs in " + historyFile);
+        }
+
+        List<String> runs = new ArrayList<>(runProviders.keySet());
+        final String currentRun = runs.get(runs.size() - 1);
+        // Provider and database to its baseline run
+        final Map<String, String> baselineRuns = new HashMap<>();
+        for (String provider : runProviders.get(currentRun)) {
+            if (!"previous".equals(baselineRun)) {
+                baselineRuns.put(provider, baselineRun);
+            } else {
+                for (int i = runs.size() - 2; i >= 0; i--) {
+                    if (runProviders.get(runs.get(i)).contains(provider)) {
+                        baselineRuns.put(provider, runs.get(i));
+                        break;
+                    }
+                }
+            }
+        }
+
+        // The second pass only keeps the rows of the compared runs
+        final Map<String, String[]> baselineRows = new HashMap<>();
+        final Map<String, String[]> currentRows = new LinkedHashMap<>();
+        readRows(new RowHandler() {
+            @Override
+            public void handle(String[] row) {
+                if (!metrics.matcher(row[METRIC]).matches()) {
+                    return;
+                }
+                if (row[RUN].equals(baselineRuns.get(provider(row)))) {
+                    baselineRows.put(key(row), row);
+                } else if (row[RUN].equals(currentRun)) {
+                    currentRows.put(key(row), row);
+                }
+            }
+        });
+
+        List<String> regressions = new ArrayList<>();
+        int compared = 0;
+        for (Map.Entry<String, String[]> entry : currentRows.entrySet()) {
+            String[] current = entry.getValue();
+            String[] baseline = baselineRows.get(entry.getKey());
+            if (baseline == null || !isNumber(current[VALUE]) || !isNumber(baseline[VALUE])) {
+                continue;
+            }
+
+            compared++;
+            double baselineValue = Double.parseDouble(baseline[VALUE]);
+            double currentValue = Double.parseDouble(current[VALUE]);
+            if (currentValue > baselineValue * (1 + thresholdPercent / 100)) {
+                String change = baselineValue == 0 ? "new" : "+" + Math.round((currentValue - baselineValue) * 100 / baselineValue) + "%";
+                regressions.add(entry.getKey() + ": " + baseline[VALUE] + " (" + baseline[VERSION] + ") -> " + current[VALUE] + " (" + current[VERSION] + "), " + change);
+            }
+        }
+
+        System.out.println("Compared " + compared + " metrics of run " + currentRun + " to " + baselineRuns);
+        return regressions;
+    }
+
+    private int appendMetrics(Writer writer, String run, String timestamp, File file, Map<String, String> times) throws IOException, XMLStreamException {
+        int rows = 0;
+
+        try (InputStream is = new FileInputStream(file)) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(is);
+            String provider = null;
+            String version = null;
+            String database = null;
+            String[] testCase = null;
+
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamReader.START_ELEMENT) {
+                    continue;
+                }
+
+                String element = reader.getLocalName();
+                if ("metrics".equals(element)) {
+                    provider = reader.getAttributeValue(null, "provider");
+                    version = reader.getAttributeValue(null, "version");
+                    database = reader.getAttributeValue(null, "database");
+                } else if ("testcase".equals(element)) {
+                    String className = reader.getAttributeValue(null, "classname");
+                    String name = reader.getAttributeValue(null, "name");
+                    // Parameterized test names end with the strategy index e.g. test[0]
+                    int bracket = name.indexOf('[');
+                    String strategy = "";
+                    if (bracket != -1) {
+                        int index = Integer.parseInt(name.substring(bracket + 1, name.indexOf(']', bracket)));
+                        strategy = index < STRATEGIES.length ? STRATEGIES[index] : String.valueOf(index);
+                    }
+
+                    testCase = new String[] { run, timestamp, provider, version, className, bracket == -1 ? name : name.substring(0, bracket), strategy };
+                    String time = times.get(className + "#" + name);
+                    if (time != null) {
+                        writeRow(writer, testCase, "timeMillis", time, database);
+                        rows++;
+                    }
+                } else if (testCase != null && "metric".equals(element)) {
+                    writeRow(writer, testCase, reader.getAttributeValue(null, "name"), reader.getAttributeValue(null, "value"), database);
+                    rows++;
+                }
+            }
+
+            reader.close();
+        }
+
+        return rows;
+    }
+
+    private Map<String, String> readTimes(File reportsDirectory) throws IOException, XMLStreamException {
+        Map<String, String> times = new HashMap<>();
+
+        for (File file : listFiles(reportsDirectory, "TEST-")) {
+            try (InputStream is = new FileInputStream(file)) {
+                XMLStreamReader reader = inputFactory.createXMLStreamReader(is);
+
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamReader.START_ELEMENT && "testcase".equals(reader.getLocalName())) {
+                        String time = reader.getAttributeValue(null, "time");
+                        if (time != null) {
+                            // Surefire uses grouping separators for long running tests
+                            long millis = Math.round(Double.parseDouble(time.replace(",", "")) * 1000);
+                            times.put(reader.getAttributeValue(null, "classname") + "#" + reader.getAttributeValue(null, "name"), Long.toString(millis));
+                        }
+                    }
+                }
+
+                reader.close();
+            }
+        }
+
+        return times;
+    }
+
+    private static File[] listFiles(File directory, final String prefix) {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(prefix) && name.endsWith(".xml");
+            }
+        });
+        return files == null ? new File[0] : files;
+    }
+
+    private void readRows(RowHandler handler) throws IOException {
+        if (!historyFile.isFile()) {
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(historyFile), StandardCharsets.UTF_8))) {
+            // Skip the header
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    handler.handle(parseRow(line));
+                }
+            }
+        }
+    }
+
+    private static interface RowHandler {
+        public void handle(String[] row);
+    }
+
+    private static String provider(String[] row) {
+        String database = row.length > DATABASE && !row[DATABASE].isEmpty() ? row[DATABASE] : "h2";
+        return row[PROVIDER] + "/" + database;
+    }
+
+    private static String key(String[] row) {
+        // Provider, database, class, test, strategy and metric
+        return provider(row) + " " + row[4] + "." + row[5] + (row[6].isEmpty() ? "" : "[" + row[6] + "]") + " " + row[METRIC];
+    }
+
+    private static boolean isNumber(String value) {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    private static void writeRow(Writer writer, String[] testCase, String metric, String value, String database) throws IOException {
+        for (String column : testCase) {
+            writeColumn(writer, column);
+            writer.write(',');
+        }
+        writeColumn(writer, metric);
+        writer.write(',');
+        writeColumn(writer, value);
+        writer.write(',');
+        writeColumn(writer, database);
+        writer.write('\n');
+    }
+
+    private static void writeColumn(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        // Rows are read line by line
+        value = value.replace('\r', ' ').replace('\n', ' ');
+        if (value.indexOf(',') == -1 && value.indexOf('"') == -1) {
+            writer.write(value);
+        } else {
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static String[] parseRow(String line) {
+        List<String> columns = new ArrayList<>(HEADER.split(",").length);
+        StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    sb.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    sb.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+
+        columns.add(sb.toString());
+        return columns.toArray(new String[columns.size()]);
+    }
+}
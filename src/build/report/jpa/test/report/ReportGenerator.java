@@ -0,0 +1,511 @@
+package jpa.test.report;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Renders the surefire reports of a test run as the asciidoc result matrices of the README.
+ * Every TEST-*.xml and METRICS-*.xml file is streamed once, only the outcome, time and statement count per test case are kept.
+ * Every result column of a matrix is followed by the time in milliseconds and the number of SQL statements of its test.
+ * Given the reports of several runs e.g. one per provider and database, it renders a comparison with one column per run instead.
+ *
+ * Usage: ReportGenerator &lt;surefire reports directory&gt; &lt;output file&gt;
+ *        ReportGenerator &lt;surefire reports directory&gt;... &lt;output file&gt;
+ */
+public class ReportGenerator {
+
+    private static final String[][] ROOT_SELECT_TESTS = {
+        { "selectTreatedRootBasic", "" },
+        { "selectMultipleTreatedRootBasic", "" },
+        { "selectTreatedParentRootBasic", "" },
+        { "selectMultipleTreatedParentRootBasic", "" },
+        { "selectTreatedRootEmbeddableBasic", "" },
+        { "selectMultipleTreatedRootEmbeddableBasic", "" },
+        { "selectTreatedParentRootEmbeddableBasic", "" },
+        { "selectMultipleTreatedParentRootEmbeddableBasic", "" }
+    };
+    private static final String[][] ROOT_WHERE_TESTS = {
+        { "whereTreatedRootBasic", "" },
+        { "whereMultipleTreatedRootBasic", "" },
+        { "whereTreatedRootEmbeddableBasic", "" },
+        { "whereMultipleTreatedRootEmbeddableBasic", "" }
+    };
+    private static final String[][] SELECT_TESTS = {
+        { "selectTreated", "" },
+        { "selectMultipleTreated", "" },
+        { "selectTreatedParent", "" },
+        { "selectMultipleTreatedParent", "" },
+        { "selectTreatedEmbeddable", "" },
+        { "selectMultipleTreatedEmbeddable", "" },
+        { "selectTreatedParentEmbeddable", "" },
+        { "selectMultipleTreatedParentEmbeddable", "" },
+        { "selectTreatedEmbeddable", "Embeddable" },
+        { "selectMultipleTreatedEmbeddable", "Embeddable" },
+        { "selectTreatedParentEmbeddable", "Embeddable" },
+        { "selectMultipleTreatedParentEmbeddable", "Embeddable" },
+        { "selectTreatedRoot", "" },
+        { "selectMultipleTreatedRoot", "" },
+        { "selectTreatedParentRoot", "" },
+        { "selectMultipleTreatedParentRoot", "" },
+        { "selectTreatedRootEmbeddable", "" },
+        { "selectMultipleTreatedRootEmbeddable", "" },
+        { "selectTreatedParentRootEmbeddable", "" },
+        { "selectMultipleTreatedParentRootEmbeddable", "" },
+        { "selectTreatedRootEmbeddable", "Embeddable" },
+        { "selectMultipleTreatedRootEmbeddable", "Embeddable" },
+        { "selectTreatedParentRootEmbeddable", "Embeddable" },
+        { "selectMultipleTreatedParentRootEmbeddable", "Embeddable" }
+    };
+    private static final String[][] JOIN_TESTS = {
+        { "treatJoin", "" },
+        { "treatJoinMultiple", "" },
+        { "treatJoinParent", "" },
+        { "treatJoinMultipleParent", "" },
+        { "treatJoinEmbeddable", "" },
+        { "treatJoinMultipleEmbeddable", "" },
+        { "treatJoinParentEmbeddable", "" },
+        { "treatJoinMultipleParentEmbeddable", "" },
+        { "joinTreatedRoot", "" },
+        { "joinMultipleTreatedRoot", "" },
+        { "joinTreatedParentRoot", "" },
+        { "joinMultipleTreatedParentRoot", "" },
+        { "joinTreatedRootEmbeddable", "" },
+        { "joinMultipleTreatedRootEmbeddable", "" },
+        { "joinTreatedParentRootEmbeddable", "" },
+        { "joinMultipleTreatedParentRootEmbeddable", "" },
+        { "treatJoinTreatedRoot", "" },
+        { "treatJoinMultipleTreatedRoot", "" },
+        { "treatJoinTreatedParentRoot", "" },
+        { "treatJoinMultipleTreatedParentRoot", "" },
+        { "treatJoinTreatedRootEmbeddable", "" },
+        { "treatJoinMultipleTreatedRootEmbeddable", "" },
+        { "treatJoinTreatedParentRootEmbeddable", "" },
+        { "treatJoinMultipleTreatedParentRootEmbeddable", "" }
+    };
+    private static final String[] STRATEGIES = { "Joined", "SingleTable", "TablePerClass" };
+    private static final String[] ASSOCIATIONS = { "ManyToOne", "OneToManyList", "OneToManyInverseSet", "ManyToManyMapKey", "ManyToManyMapValue" };
+
+    private static final String ROOT_TABLE_DELIMITER = "|=================================================================================================================================================\n";
+    private static final String ASSOCIATION_TABLE_DELIMITER = "|=====================================================================================================================================================================================================\n";
+    // The columns after every result column
+    private static final String METRIC_COLUMNS = "ms,SQL";
+
+    private final File reportsDirectory;
+    private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    // Class name and test name to whether it failed
+    private final Map<String, Boolean> failures = new HashMap<>();
+    // Class name and test name to the time in milliseconds
+    private final Map<String, Long> times = new HashMap<>();
+    // Class name and test name to the number of executed SQL statements
+    private final Map<String, String> statementCounts = new HashMap<>();
+    private final List<SuiteMetrics> suiteMetrics = new ArrayList<>();
+
+    public ReportGenerator(File reportsDirectory) {
+        this.reportsDirectory = reportsDirectory;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: ReportGenerator <surefire reports directory>... <output file>");
+        }
+
+        if (args.length == 2) {
+            new ReportGenerator(new File(args[0])).generate(new File(args[1]));
+        } else {
+            List<File> reportsDirectories = new ArrayList<>();
+            for (int i = 0; i < args.length - 1; i++) {
+                reportsDirectories.add(new File(args[i]));
+            }
+            compare(reportsDirectories, new File(args[args.length - 1]));
+        }
+    }
+
+    public void generate(File output) throws IOException, XMLStreamException {
+        long start = System.nanoTime();
+        int testFiles = read();
+
+        output.getAbsoluteFile().getParentFile().mkdirs();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8))) {
+            if (!reportsDirectory.isDirectory()) {
+                // The tests of a provider whose module failed to build didn't run
+                writer.write("No test reports, the tests didn't run.\n");
+                System.out.println("Generated " + output + " without test reports, " + reportsDirectory + " doesn't exist");
+                return;
+            }
+            writeRootResults(writer);
+            writer.write("\n\n==== Association treat\n");
+            for (int i = 0; i < STRATEGIES.length; i++) {
+                writeAssociationResults(writer, STRATEGIES[i], "[" + i + "]");
+            }
+        }
+
+        System.out.println("Generated " + output + " from " + testFiles + " test reports in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Renders the passed tests per strategy and the average benchmark times of the runs side by side.
+     * The runs are named after their reports directory e.g. eclipselink-hsqldb or, for the surefire reports of a module, after the module.
+     */
+    public static void compare(List<File> reportsDirectories, File output) throws IOException, XMLStreamException {
+        long start = System.nanoTime();
+        List<ReportGenerator> runs = new ArrayList<>(reportsDirectories.size());
+        for (File reportsDirectory : reportsDirectories) {
+            ReportGenerator run = new ReportGenerator(reportsDirectory);
+            run.read();
+            runs.add(run);
+        }
+
+        // Row name to the values per run, the benchmark rows keep the order of the first run that reported them
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        for (int i = 0; i < STRATEGIES.length; i++) {
+            String[] values = new String[runs.size()];
+            for (int j = 0; j < runs.size(); j++) {
+                values[j] = Integer.toString(runs.get(j).countPassed("[" + i + "]"));
+            }
+            rows.put("Passed tests " + STRATEGIES[i], values);
+        }
+        for (int j = 0; j < runs.size(); j++) {
+            for (SuiteMetrics suite : runs.get(j).suiteMetrics) {
+                for (TestCaseMetrics testCase : suite.testCases) {
+                    for (Map.Entry<String, String> metric : testCase.metrics.entrySet()) {
+                        if (!metric.getKey().endsWith("AvgMicros")) {
+                            continue;
+                        }
+
+                        String name = suite.name + "." + testCase.testName + " " + metric.getKey() + (testCase.strategyIndex.isEmpty() ? "" : " " + strategy(testCase.strategyIndex));
+                        String[] values = rows.get(name);
+                        if (values == null) {
+                            values = new String[runs.size()];
+                            rows.put(name, values);
+                        }
+                        values[j] = metric.getValue();
+                    }
+                }
+            }
+        }
+
+        output.getAbsoluteFile().getParentFile().mkdirs();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8))) {
+            writer.write("\n==== Runs\n\n");
+            writer.write(ROOT_TABLE_DELIMITER);
+            writer.write('|');
+            writer.write(pad("Name", 90));
+            for (File reportsDirectory : reportsDirectories) {
+                writer.write('|');
+                writer.write(pad(" " + getRunName(reportsDirectory), 25));
+            }
+            writer.write('\n');
+            for (Map.Entry<String, String[]> row : rows.entrySet()) {
+                writer.write('|');
+                // Benchmark rows are longer than test names
+                writer.write(pad(" " + row.getKey(), 90));
+                for (String value : row.getValue()) {
+                    writer.write('|');
+                    writer.write(pad(value == null ? "" : value, 25));
+                }
+                writer.write('\n');
+            }
+            writer.write(ROOT_TABLE_DELIMITER);
+        }
+
+        System.out.println("Generated " + output + " from " + runs.size() + " runs in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    private static String getRunName(File reportsDirectory) {
+        File directory = reportsDirectory.getAbsoluteFile();
+        // target/surefire-reports of a module
+        if ("surefire-reports".equals(directory.getName()) && directory.getParentFile().getParentFile() != null) {
+            return directory.getParentFile().getParentFile().getName();
+        }
+        return directory.getName();
+    }
+
+    private int read() throws IOException, XMLStreamException {
+        int testFiles = 0;
+
+        for (File file : listFiles("TEST-")) {
+            readTestResults(file);
+            testFiles++;
+        }
+        for (File file : listFiles("METRICS-")) {
+            readMetrics(file);
+        }
+
+        return testFiles;
+    }
+
+    private int countPassed(String strategySuffix) {
+        int passed = 0;
+        for (Map.Entry<String, Boolean> entry : failures.entrySet()) {
+            if (entry.getKey().endsWith(strategySuffix) && !entry.getValue()) {
+                passed++;
+            }
+        }
+        return passed;
+    }
+
+    private File[] listFiles(final String prefix) {
+        File[] files = reportsDirectory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith(prefix) && name.endsWith(".xml");
+            }
+        });
+
+        if (files == null) {
+            return new File[0];
+        }
+
+        Arrays.sort(files);
+        return files;
+    }
+
+    private void readTestResults(File file) throws IOException, XMLStreamException {
+        try (InputStream is = new FileInputStream(file)) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(is);
+            String testName = null;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamReader.START_ELEMENT) {
+                    String element = reader.getLocalName();
+                    if ("testcase".equals(element)) {
+                        // Test classes like the benchmarks share test names
+                        testName = reader.getAttributeValue(null, "classname") + "#" + reader.getAttributeValue(null, "name");
+                        if (!failures.containsKey(testName)) {
+                            failures.put(testName, Boolean.FALSE);
+                        }
+
+                        String time = reader.getAttributeValue(null, "time");
+                        if (time != null) {
+                            // Surefire uses grouping separators for long running tests
+                            long millis = Math.round(Double.parseDouble(time.replace(",", "")) * 1000);
+                            times.put(testName, millis);
+                        }
+                    } else if (testName != null && ("failure".equals(element) || "error".equals(element))) {
+                        failures.put(testName, Boolean.TRUE);
+                    }
+                } else if (event == XMLStreamReader.END_ELEMENT && "testcase".equals(reader.getLocalName())) {
+                    testName = null;
+                }
+            }
+
+            reader.close();
+        }
+    }
+
+    private void readMetrics(File file) throws IOException, XMLStreamException {
+        String fileName = file.getName();
+        String className = fileName.substring("METRICS-".length(), fileName.length() - ".xml".length());
+        SuiteMetrics suite = new SuiteMetrics(className.substring(className.lastIndexOf('.') + 1));
+
+        try (InputStream is = new FileInputStream(file)) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(is);
+            String testName = null;
+            TestCaseMetrics testCase = null;
+
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamReader.START_ELEMENT) {
+                    String element = reader.getLocalName();
+                    if ("testcase".equals(element)) {
+                        testName = reader.getAttributeValue(null, "classname") + "#" + reader.getAttributeValue(null, "name");
+                        testCase = new TestCaseMetrics(reader.getAttributeValue(null, "name"));
+                        Long millis = times.get(testName);
+                        if (millis != null) {
+                            testCase.put("timeMillis", millis.toString());
+                        }
+                        suite.testCases.add(testCase);
+                    } else if (testCase != null && "metric".equals(element)) {
+                        String name = reader.getAttributeValue(null, "name");
+                        String value = reader.getAttributeValue(null, "value");
+                        testCase.put(name, value);
+                        if ("statementCount".equals(name)) {
+                            statementCounts.put(testName, value);
+                        }
+                    }
+                }
+            }
+
+            reader.close();
+        }
+
+        if (!suite.testCases.isEmpty()) {
+            suiteMetrics.add(suite);
+        }
+    }
+
+    private void writeRootResults(Writer writer) throws IOException {
+        writer.write("\n==== Root treat\n\n[cols=\"" + cols(STRATEGIES.length) + "\"]\n");
+        writer.write(ROOT_TABLE_DELIMITER);
+        writeHeader(writer, STRATEGIES);
+        writeSection(writer, "**SELECT**", STRATEGIES.length);
+        for (String[] test : ROOT_SELECT_TESTS) {
+            writeRootRow(writer, test[0] + test[1]);
+        }
+        writeSection(writer, "**WHERE**", STRATEGIES.length);
+        for (String[] test : ROOT_WHERE_TESTS) {
+            writeRootRow(writer, test[0] + test[1]);
+        }
+        writer.write(ROOT_TABLE_DELIMITER);
+    }
+
+    private void writeRootRow(Writer writer, String name) throws IOException {
+        writer.write('|');
+        writer.write(pad(" " + name, 67));
+        for (int i = 0; i < STRATEGIES.length; i++) {
+            writeResult(writer, name + "[" + i + "]");
+        }
+        writer.write('\n');
+    }
+
+    private void writeAssociationResults(Writer writer, String strategy, String strategySuffix) throws IOException {
+        writer.write("\n===== " + strategy + "\n\n[cols=\"" + cols(ASSOCIATIONS.length) + "\"]\n");
+        writer.write(ASSOCIATION_TABLE_DELIMITER);
+        writeHeader(writer, ASSOCIATIONS);
+        writeSection(writer, "**SELECT**", ASSOCIATIONS.length);
+        for (String[] test : SELECT_TESTS) {
+            writeAssociationRow(writer, test[0], test[1], strategySuffix);
+        }
+        writeSection(writer, "**JOIN**", ASSOCIATIONS.length);
+        for (String[] test : JOIN_TESTS) {
+            writeAssociationRow(writer, test[0], test[1], strategySuffix);
+        }
+        writer.write(ASSOCIATION_TABLE_DELIMITER);
+    }
+
+    private void writeAssociationRow(Writer writer, String prefix, String suffix, String strategySuffix) throws IOException {
+        writer.write('|');
+        writer.write(pad(" " + prefix + "{Association}" + suffix, 67));
+        for (String association : ASSOCIATIONS) {
+            writeResult(writer, prefix + association + suffix + strategySuffix);
+        }
+        writer.write('\n');
+    }
+
+    private static String cols(int resultColumns) {
+        StringBuilder sb = new StringBuilder("e");
+        for (int i = 0; i < resultColumns; i++) {
+            sb.append(",^,>,>");
+        }
+        return sb.toString();
+    }
+
+    private static void writeHeader(Writer writer, String[] resultColumns) throws IOException {
+        writer.write('|');
+        writer.write(pad("Name", 67));
+        for (String column : resultColumns) {
+            writer.write('|');
+            writer.write(pad(" " + column, 25));
+            for (String metricColumn : METRIC_COLUMNS.split(",")) {
+                writer.write('|');
+                writer.write(pad(" " + metricColumn, 8));
+            }
+        }
+        writer.write('\n');
+    }
+
+    private static void writeSection(Writer writer, String name, int resultColumns) throws IOException {
+        writer.write('|');
+        writer.write(pad(name, 67));
+        for (int i = 0; i < resultColumns; i++) {
+            writer.write('|');
+            writer.write(pad("", 25));
+            writer.write('|');
+            writer.write(pad("", 8));
+            writer.write('|');
+            writer.write(pad("", 8));
+        }
+        writer.write('\n');
+    }
+
+    private void writeResult(Writer writer, String testName) throws IOException {
+        // Tests that didn't run at all are not reported as failure
+        Boolean failed = get(failures, testName);
+        Long millis = get(times, testName);
+        String statementCount = get(statementCounts, testName);
+        writer.write('|');
+        writer.write(pad(Boolean.TRUE.equals(failed) ? ":fail:" : ":pass:", 25));
+        writer.write('|');
+        writer.write(pad(millis == null ? "" : millis.toString(), 8));
+        writer.write('|');
+        writer.write(pad(statementCount == null ? "" : statementCount, 8));
+    }
+
+    /**
+     * Returns the value of the test with the given name in any test class, the names of the treat tests are unique.
+     */
+    private static <T> T get(Map<String, T> values, String testName) {
+        String suffix = "#" + testName;
+        for (Map.Entry<String, T> entry : values.entrySet()) {
+            if (entry.getKey().endsWith(suffix)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String strategy(String index) {
+        int i = Integer.parseInt(index);
+        return i < STRATEGIES.length ? STRATEGIES[i] : index;
+    }
+
+    private static String pad(String text, int length) {
+        if (text.length() >= length) {
+            return text.substring(0, length);
+        }
+
+        StringBuilder sb = new StringBuilder(length);
+        sb.append(text);
+        while (sb.length() < length) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static class SuiteMetrics {
+
+        final String name;
+        final List<TestCaseMetrics> testCases = new ArrayList<>();
+
+        SuiteMetrics(String name) {
+            this.name = name;
+        }
+    }
+
+    private static class TestCaseMetrics {
+
+        final String name;
+        final String testName;
+        final String strategyIndex;
+        final Map<String, String> metrics = new LinkedHashMap<>();
+
+        TestCaseMetrics(String name) {
+            // Parameterized test names end with the strategy index e.g. test[0]
+            int bracket = name.indexOf('[');
+            this.name = name;
+            this.testName = bracket == -1 ? name : name.substring(0, bracket);
+            this.strategyIndex = bracket == -1 ? "" : name.substring(bracket + 1, name.indexOf(']', bracket));
+        }
+
+        void put(String name, String value) {
+            metrics.put(name, value);
+        }
+    }
+}
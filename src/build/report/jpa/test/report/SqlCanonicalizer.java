@@ -0,0 +1,496 @@
+package jpa.test.report;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Normalizes the SQL of the providers so that the SQL for the same query can be compared structurally.
+ * Table aliases are replaced by the table name and its occurrence e.g. <code>JOINED_BASE#1</code>, literals and parameters by <code>?</code>,
+ * the columns of a query over a single table are not qualified,
+ * the items of the SELECT clause, the conjuncts and disjuncts of conditions, the operands of equality predicates, UNION branches and consecutive joins of the same type are sorted.
+ * This is a tokenizer based heuristic for the SELECT statements of the tests, not a full SQL parser.
+ */
+public final class SqlCanonicalizer {
+
+    private static final Set<String> CLAUSES = new HashSet<>(Arrays.asList("SELECT", "FROM", "WHERE", "GROUP", "HAVING", "ORDER", "LIMIT", "OFFSET", "FETCH", "FOR"));
+    private static final Set<String> SET_OPERATORS = new HashSet<>(Arrays.asList("UNION", "EXCEPT", "INTERSECT", "MINUS"));
+    private static final Set<String> JOIN_KEYWORDS = new HashSet<>(Arrays.asList("JOIN", "INNER", "LEFT", "RIGHT", "FULL", "OUTER", "CROSS", ","));
+
+    // Table name to the number of occurrences so far
+    private final Map<String, Integer> tableOccurrences = new HashMap<>();
+    private int joins;
+    private int subqueries;
+    private int unions;
+
+    private SqlCanonicalizer() {
+    }
+
+    /**
+     * The canonical SQL along with the number of joins, subqueries and set operations of a statement.
+     */
+    public static final class Shape {
+
+        public final String sql;
+        public final int joins;
+        public final int subqueries;
+        public final int unions;
+
+        Shape(String sql, int joins, int subqueries, int unions) {
+            this.sql = sql;
+            this.joins = joins;
+            this.subqueries = subqueries;
+            this.unions = unions;
+        }
+
+        @Override
+        public String toString() {
+            return joins + "/" + subqueries + "/" + unions;
+        }
+    }
+
+    public static Shape canonicalize(String sql) {
+        SqlCanonicalizer canonicalizer = new SqlCanonicalizer();
+        String canonical = canonicalizer.query(tokenize(sql), new HashMap<String, String>());
+        return new Shape(canonical, canonicalizer.joins, canonicalizer.subqueries, canonicalizer.unions);
+    }
+
+    private String query(List<String> tokens, Map<String, String> outerAliases) {
+        List<String> branches = new ArrayList<>();
+        Set<String> operators = new HashSet<>();
+        int start = 0;
+        int depth = 0;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if ("(".equals(token)) {
+                depth++;
+            } else if (")".equals(token)) {
+                depth--;
+            } else if (depth == 0 && SET_OPERATORS.contains(token)) {
+                branches.add(select(unwrap(tokens.subList(start, i)), outerAliases));
+                boolean all = i + 1 < tokens.size() && "ALL".equals(tokens.get(i + 1));
+                operators.add(all ? token + " ALL" : token);
+                unions++;
+                start = all ? i + 2 : i + 1;
+            }
+        }
+        branches.add(select(unwrap(tokens.subList(start, tokens.size())), outerAliases));
+
+        if (branches.size() == 1) {
+            return branches.get(0);
+        }
+        // The order of the branches only matters when mixing set operators
+        if (operators.size() == 1) {
+            Collections.sort(branches);
+        }
+        return join(branches, " " + (operators.size() == 1 ? operators.iterator().next() : "SET") + " ");
+    }
+
+    private String select(List<String> tokens, Map<String, String> outerAliases) {
+        // Clause keyword to its tokens, the aliases of the FROM clause are needed for all other clauses
+        Map<String, List<String>> clauses = new HashMap<>();
+        List<String> clauseOrder = new ArrayList<>();
+        List<String> current = null;
+        int depth = 0;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (depth == 0 && CLAUSES.contains(token)) {
+                current = new ArrayList<>();
+                clauses.put(token, current);
+                clauseOrder.add(token);
+                // GROUP BY and ORDER BY
+                if (i + 1 < tokens.size() && "BY".equals(tokens.get(i + 1))) {
+                    i++;
+                }
+                continue;
+            }
+            if ("(".equals(token)) {
+                depth++;
+            } else if (")".equals(token)) {
+                depth--;
+            }
+            if (current != null) {
+                current.add(token);
+            }
+        }
+
+        Map<String, String> aliases = new HashMap<>(outerAliases);
+        String from = clauses.containsKey("FROM") ? from(clauses.get("FROM"), aliases) : null;
+        // EclipseLink doesn't qualify the columns of a query over a single table, they are unambiguous as long as there is no subquery
+        if (from != null && from.indexOf(' ') == -1 && tokens.lastIndexOf("SELECT") <= 0) {
+            for (Map.Entry<String, String> alias : aliases.entrySet()) {
+                if (from.equals(alias.getValue())) {
+                    alias.setValue("");
+                }
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+
+        for (String clause : clauseOrder) {
+            List<String> clauseTokens = clauses.get(clause);
+            if (sb.length() != 0) {
+                sb.append(' ');
+            }
+            switch (clause) {
+                case "SELECT":
+                    sb.append("SELECT ").append(selectItems(clauseTokens, aliases));
+                    break;
+                case "FROM":
+                    sb.append("FROM ").append(from);
+                    break;
+                case "WHERE":
+                case "HAVING":
+                    sb.append(clause).append(' ').append(condition(clauseTokens, aliases));
+                    break;
+                case "GROUP":
+                case "ORDER":
+                    sb.append(clause).append(" BY ").append(expression(clauseTokens, aliases));
+                    break;
+                default:
+                    sb.append(clause).append(' ').append(expression(clauseTokens, aliases));
+                    break;
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private String selectItems(List<String> tokens, Map<String, String> aliases) {
+        boolean distinct = !tokens.isEmpty() && "DISTINCT".equals(tokens.get(0));
+        List<String> items = new ArrayList<>();
+
+        for (List<String> item : split(distinct ? tokens.subList(1, tokens.size()) : tokens, ",")) {
+            // Column aliases only name the result columns
+            int as = item.lastIndexOf("AS");
+            items.add(expression(as > 0 && as == item.size() - 2 ? item.subList(0, as) : item, aliases));
+        }
+
+        Collections.sort(items);
+        return (distinct ? "DISTINCT " : "") + join(items, ", ");
+    }
+
+    private String from(List<String> tokens, Map<String, String> aliases) {
+        List<String> joinTypes = new ArrayList<>();
+        List<List<String>> references = new ArrayList<>();
+        List<List<String>> conditions = new ArrayList<>();
+        int i = 0;
+
+        while (i < tokens.size()) {
+            // The join type up to and including JOIN or the comma of a cross join
+            StringBuilder joinType = new StringBuilder();
+            while (i < tokens.size() && JOIN_KEYWORDS.contains(tokens.get(i))) {
+                String token = tokens.get(i++);
+                if (!"OUTER".equals(token) && !"INNER".equals(token)) {
+                    joinType.append(joinType.length() == 0 ? "" : " ").append(token);
+                }
+                if ("JOIN".equals(token) || ",".equals(token)) {
+                    break;
+                }
+            }
+
+            int end = i;
+            if (end < tokens.size() && "(".equals(tokens.get(end))) {
+                end = closingParenthesis(tokens, end) + 1;
+            } else {
+                end++;
+            }
+            while (end < tokens.size() && !"ON".equals(tokens.get(end)) && !JOIN_KEYWORDS.contains(tokens.get(end))) {
+                end++;
+            }
+            List<String> reference = tokens.subList(i, end);
+            i = end;
+
+            List<String> condition = Collections.emptyList();
+            if (i < tokens.size() && "ON".equals(tokens.get(i))) {
+                int depth = 0;
+                end = ++i;
+                while (end < tokens.size() && (depth > 0 || !JOIN_KEYWORDS.contains(tokens.get(end)))) {
+                    if ("(".equals(tokens.get(end))) {
+                        depth++;
+                    } else if (")".equals(tokens.get(end))) {
+                        depth--;
+                    }
+                    end++;
+                }
+                condition = tokens.subList(i, end);
+                i = end;
+            }
+
+            joinTypes.add(joinType.length() == 0 ? null : ",".equals(joinType.toString()) ? "CROSS JOIN" : joinType.toString());
+            references.add(reference);
+            conditions.add(condition);
+        }
+
+        // All aliases are known before any condition or derived table is rendered
+        List<String> names = new ArrayList<>(references.size());
+        for (List<String> reference : references) {
+            names.add(alias(reference, aliases));
+        }
+
+        List<String> items = new ArrayList<>(references.size());
+        for (int j = 0; j < references.size(); j++) {
+            List<String> reference = references.get(j);
+            String table;
+            if (isJoinGroup(reference)) {
+                table = "(" + from(reference.subList(1, closingParenthesis(reference, 0)), aliases) + ")";
+            } else if ("(".equals(reference.get(0))) {
+                subqueries++;
+                table = "(" + query(reference.subList(1, closingParenthesis(reference, 0)), aliases) + ") " + names.get(j);
+            } else {
+                table = names.get(j);
+            }
+
+            StringBuilder item = new StringBuilder();
+            if (joinTypes.get(j) != null) {
+                item.append(joinTypes.get(j)).append(' ');
+            }
+            item.append(table);
+            if (!conditions.get(j).isEmpty()) {
+                item.append(" ON ").append(condition(conditions.get(j), aliases));
+            }
+            items.add(item.toString());
+        }
+        joins += items.size() - 1;
+
+        // Consecutive joins of the same type can be reordered
+        int start = 1;
+        for (int j = 2; j <= items.size(); j++) {
+            if (j == items.size() || !joinTypes.get(j).equals(joinTypes.get(start))) {
+                Collections.sort(items.subList(start, j));
+                start = j;
+            }
+        }
+
+        return join(items, " ");
+    }
+
+    private static boolean isJoinGroup(List<String> reference) {
+        return "(".equals(reference.get(0)) && reference.size() > 1 && !"SELECT".equals(reference.get(1));
+    }
+
+    /**
+     * Registers the canonical alias of a table reference and returns it, join groups register their aliases when rendered.
+     */
+    private String alias(List<String> reference, Map<String, String> aliases) {
+        if (isJoinGroup(reference)) {
+            return null;
+        }
+
+        boolean derived = "(".equals(reference.get(0));
+        int end = derived ? closingParenthesis(reference, 0) + 1 : 1;
+        String table = derived ? "Q" : reference.get(0);
+        // Schema qualified tables
+        while (!derived && end + 1 < reference.size() && ".".equals(reference.get(end))) {
+            table = reference.get(end + 1);
+            end += 2;
+        }
+
+        Integer occurrence = tableOccurrences.get(table);
+        occurrence = occurrence == null ? 1 : occurrence + 1;
+        tableOccurrences.put(table, occurrence);
+        String name = table + "#" + occurrence;
+
+        if (end < reference.size() && "AS".equals(reference.get(end))) {
+            end++;
+        }
+        if (end < reference.size()) {
+            aliases.put(reference.get(end), name);
+        } else if (!derived) {
+            // Unaliased tables are referenced by their name
+            aliases.put(table, name);
+        }
+        return name;
+    }
+
+    private String condition(List<String> tokens, Map<String, String> aliases) {
+        List<String> conjuncts = new ArrayList<>();
+        addConjuncts(conjuncts, tokens, aliases);
+        Collections.sort(conjuncts);
+        return join(conjuncts, " AND ");
+    }
+
+    private void addConjuncts(List<String> conjuncts, List<String> tokens, Map<String, String> aliases) {
+        tokens = unwrap(tokens);
+        // OR binds weaker than AND, so a disjunction is a single conjunct, parenthesized and with its disjuncts sorted like conjuncts
+        List<List<String>> disjuncts = split(tokens, "OR");
+        if (disjuncts.size() > 1) {
+            List<String> items = new ArrayList<>(disjuncts.size());
+            for (List<String> disjunct : disjuncts) {
+                items.add(condition(disjunct, aliases));
+            }
+            Collections.sort(items);
+            conjuncts.add("(" + join(items, " OR ") + ")");
+            return;
+        }
+
+        List<List<String>> parts = split(tokens, "AND");
+        if (parts.size() > 1) {
+            for (List<String> part : parts) {
+                addConjuncts(conjuncts, part, aliases);
+            }
+            return;
+        }
+
+        List<List<String>> operands = split(tokens, "=");
+        if (operands.size() == 2) {
+            String left = expression(operands.get(0), aliases);
+            String right = expression(operands.get(1), aliases);
+            conjuncts.add(left.compareTo(right) <= 0 ? left + " = " + right : right + " = " + left);
+        } else {
+            conjuncts.add(expression(tokens, aliases));
+        }
+    }
+
+    private String expression(List<String> tokens, Map<String, String> aliases) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            String text;
+            if ("(".equals(token) && i + 1 < tokens.size() && "SELECT".equals(tokens.get(i + 1))) {
+                int end = closingParenthesis(tokens, i);
+                subqueries++;
+                text = "(" + query(tokens.subList(i + 1, end), aliases) + ")";
+                i = end;
+            } else if (i + 1 < tokens.size() && ".".equals(tokens.get(i + 1)) && aliases.containsKey(token)) {
+                text = aliases.get(token);
+                if (text.isEmpty()) {
+                    // The unqualified column follows
+                    i++;
+                    continue;
+                }
+            } else {
+                text = token;
+            }
+
+            boolean glued = sb.length() == 0 || ".".equals(text) || sb.charAt(sb.length() - 1) == '.'
+                    || sb.charAt(sb.length() - 1) == '(' || ")".equals(text) || ",".equals(text);
+            if (!glued) {
+                sb.append(' ');
+            }
+            sb.append(text);
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Splits the tokens at the given separator outside of parentheses, the AND of BETWEEN doesn't separate.
+     */
+    private static List<List<String>> split(List<String> tokens, String separator) {
+        List<List<String>> parts = new ArrayList<>();
+        int start = 0;
+        int depth = 0;
+        boolean between = false;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if ("(".equals(token)) {
+                depth++;
+            } else if (")".equals(token)) {
+                depth--;
+            } else if (depth == 0 && "BETWEEN".equals(token)) {
+                between = true;
+            } else if (depth == 0 && separator.equals(token)) {
+                if (between && "AND".equals(token)) {
+                    between = false;
+                } else {
+                    parts.add(tokens.subList(start, i));
+                    start = i + 1;
+                }
+            }
+        }
+
+        parts.add(tokens.subList(start, tokens.size()));
+        return parts;
+    }
+
+    private static List<String> unwrap(List<String> tokens) {
+        while (tokens.size() > 1 && "(".equals(tokens.get(0)) && closingParenthesis(tokens, 0) == tokens.size() - 1) {
+            tokens = tokens.subList(1, tokens.size() - 1);
+        }
+        return tokens;
+    }
+
+    private static int closingParenthesis(List<String> tokens, int open) {
+        int depth = 0;
+        for (int i = open; i < tokens.size(); i++) {
+            if ("(".equals(tokens.get(i))) {
+                depth++;
+            } else if (")".equals(tokens.get(i)) && --depth == 0) {
+                return i;
+            }
+        }
+        return tokens.size() - 1;
+    }
+
+    /**
+     * Splits the SQL into upper case words, quoted identifiers without quotes, symbols and <code>?</code> for every literal or parameter.
+     */
+    static List<String> tokenize(String sql) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '}') {
+                i++;
+            } else if (sql.regionMatches(true, i, "{oj", 0, 3)) {
+                // The JDBC escape for outer joins EclipseLink uses
+                i += 3;
+            } else if (c == '\'') {
+                // Doubled quotes escape a quote
+                i++;
+                while (i < sql.length() && (sql.charAt(i) != '\'' || i + 1 < sql.length() && sql.charAt(i + 1) == '\'')) {
+                    i += sql.charAt(i) == '\'' ? 2 : 1;
+                }
+                i++;
+                tokens.add("?");
+            } else if (c == '"' || c == '`') {
+                int end = sql.indexOf(c, i + 1);
+                end = end == -1 ? sql.length() : end;
+                tokens.add(sql.substring(i + 1, end).toUpperCase());
+                i = end + 1;
+            } else if (Character.isDigit(c) || c == '?' || c == ':' && i + 1 < sql.length() && Character.isLetterOrDigit(sql.charAt(i + 1))) {
+                // Numbers as well as positional and named parameters
+                i++;
+                while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.' || sql.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add("?");
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = i;
+                while (i < sql.length() && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '$')) {
+                    i++;
+                }
+                tokens.add(sql.substring(start, i).toUpperCase());
+            } else if (i + 1 < sql.length() && (sql.startsWith("<>", i) || sql.startsWith("!=", i) || sql.startsWith("<=", i) || sql.startsWith(">=", i) || sql.startsWith("||", i))) {
+                tokens.add(sql.startsWith("!=", i) ? "<>" : sql.substring(i, i + 2));
+                i += 2;
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+
+        return tokens;
+    }
+
+    private static String join(List<String> parts, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : parts) {
+            if (sb.length() != 0) {
+                sb.append(separator);
+            }
+            sb.append(part);
+        }
+        return sb.toString();
+    }
+}
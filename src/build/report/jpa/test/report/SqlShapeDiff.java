@@ -0,0 +1,215 @@
+package jpa.test.report;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Compares the SQL the providers generated for the same test case, as captured with <code>-DcaptureSql=true</code> in the <code>sql</code> metric.
+ * Every run is a column with the joins, subqueries and set operations of the canonical SQL,
+ * the last column lists the runs that need more of them than the cheapest run or whose SQL differs otherwise.
+ *
+ * Usage: SqlShapeDiff &lt;surefire reports directory&gt;... &lt;output file&gt;
+ */
+public class SqlShapeDiff {
+
+    private static final String[] STRATEGIES = { "Joined", "SingleTable", "TablePerClass" };
+    private static final String TABLE_DELIMITER = "|=================================================================================================================================================\n";
+
+    private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    private final List<String> runs = new ArrayList<>();
+    // Test case to the shape per run, sorted by test case
+    private final Map<String, SqlCanonicalizer.Shape[]> shapes = new TreeMap<>();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: SqlShapeDiff <surefire reports directory>... <output file>");
+        }
+
+        List<File> reportsDirectories = new ArrayList<>();
+        for (int i = 0; i < args.length - 1; i++) {
+            reportsDirectories.add(new File(args[i]));
+        }
+        new SqlShapeDiff().generate(reportsDirectories, new File(args[args.length - 1]));
+    }
+
+    public void generate(List<File> reportsDirectories, File output) throws IOException, XMLStreamException {
+        long start = System.nanoTime();
+        for (int i = 0; i < reportsDirectories.size(); i++) {
+            runs.add(reportsDirectories.get(i).getName());
+            for (File file : listFiles(reportsDirectories.get(i))) {
+                readShapes(file, i, reportsDirectories.size());
+            }
+        }
+
+        int[][] totals = new int[runs.size()][3];
+        output.getAbsoluteFile().getParentFile().mkdirs();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), StandardCharsets.UTF_8))) {
+            writer.write("\n==== SQL shapes\n\nJoins/subqueries/set operations of the canonical SQL per test case.\n\n");
+            writer.write(TABLE_DELIMITER);
+            writer.write("|Name                                                               |Strategy       ");
+            for (String run : runs) {
+                writer.write('|');
+                writer.write(pad(" " + run, 15));
+            }
+            writer.write("|Difference\n");
+
+            for (Map.Entry<String, SqlCanonicalizer.Shape[]> entry : shapes.entrySet()) {
+                String name = entry.getKey();
+                int bracket = name.indexOf('[');
+                writer.write('|');
+                writer.write(pad(" " + (bracket == -1 ? name : name.substring(0, bracket)), 67));
+                writer.write('|');
+                writer.write(pad(bracket == -1 ? "" : strategy(name.substring(bracket + 1, name.indexOf(']', bracket))), 15));
+
+                SqlCanonicalizer.Shape[] runShapes = entry.getValue();
+                for (int i = 0; i < runShapes.length; i++) {
+                    writer.write('|');
+                    writer.write(pad(runShapes[i] == null ? "" : runShapes[i].toString(), 15));
+                    if (runShapes[i] != null) {
+                        totals[i][0] += runShapes[i].joins;
+                        totals[i][1] += runShapes[i].subqueries;
+                        totals[i][2] += runShapes[i].unions;
+                    }
+                }
+                writer.write('|');
+                writer.write(difference(runShapes));
+                writer.write('\n');
+            }
+
+            writer.write('|');
+            writer.write(pad("**Total**", 67));
+            writer.write('|');
+            writer.write(pad("", 15));
+            for (int[] total : totals) {
+                writer.write('|');
+                writer.write(pad(total[0] + "/" + total[1] + "/" + total[2], 15));
+            }
+            writer.write("|\n");
+            writer.write(TABLE_DELIMITER);
+        }
+
+        System.out.println("Generated " + output + " from " + shapes.size() + " test cases of " + runs.size() + " runs in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Returns the runs whose SQL needs more joins, subqueries or set operations than the minimum of all runs,
+     * or the runs whose SQL differs from the first run with the same counts.
+     */
+    private String difference(SqlCanonicalizer.Shape[] runShapes) {
+        int minJoins = Integer.MAX_VALUE;
+        int minSubqueries = Integer.MAX_VALUE;
+        int minUnions = Integer.MAX_VALUE;
+        SqlCanonicalizer.Shape first = null;
+        for (SqlCanonicalizer.Shape shape : runShapes) {
+            if (shape != null) {
+                minJoins = Math.min(minJoins, shape.joins);
+                minSubqueries = Math.min(minSubqueries, shape.subqueries);
+                minUnions = Math.min(minUnions, shape.unions);
+                first = first == null ? shape : first;
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < runShapes.length; i++) {
+            SqlCanonicalizer.Shape shape = runShapes[i];
+            if (shape == null) {
+                continue;
+            }
+
+            StringBuilder extra = new StringBuilder();
+            append(extra, shape.joins - minJoins, "join");
+            append(extra, shape.subqueries - minSubqueries, "subquery");
+            append(extra, shape.unions - minUnions, "set operation");
+            if (extra.length() == 0 && !shape.sql.equals(first.sql)) {
+                extra.append("different SQL");
+            }
+            if (extra.length() != 0) {
+                sb.append(sb.length() == 0 ? "" : "; ").append(runs.get(i)).append(": ").append(extra);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, int count, String name) {
+        if (count > 0) {
+            sb.append(sb.length() == 0 ? "" : ", ").append('+').append(count).append(' ').append(name);
+            if (count > 1) {
+                sb.append(name.endsWith("y") ? "" : "s");
+            }
+        }
+    }
+
+    private void readShapes(File file, int run, int runCount) throws IOException, XMLStreamException {
+        String fileName = file.getName();
+        String className = fileName.substring("METRICS-".length(), fileName.length() - ".xml".length());
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+
+        try (InputStream is = new FileInputStream(file)) {
+            XMLStreamReader reader = inputFactory.createXMLStreamReader(is);
+            String testCase = null;
+
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamReader.START_ELEMENT) {
+                    continue;
+                }
+
+                String element = reader.getLocalName();
+                if ("testcase".equals(element)) {
+                    testCase = simpleName + "." + reader.getAttributeValue(null, "name");
+                } else if (testCase != null && "metric".equals(element) && "sql".equals(reader.getAttributeValue(null, "name"))) {
+                    SqlCanonicalizer.Shape[] runShapes = shapes.get(testCase);
+                    if (runShapes == null) {
+                        runShapes = new SqlCanonicalizer.Shape[runCount];
+                        shapes.put(testCase, runShapes);
+                    }
+                    runShapes[run] = SqlCanonicalizer.canonicalize(reader.getAttributeValue(null, "value"));
+                }
+            }
+
+            reader.close();
+        }
+    }
+
+    private static File[] listFiles(File directory) {
+        File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.startsWith("METRICS-") && name.endsWith(".xml");
+            }
+        });
+        return files == null ? new File[0] : files;
+    }
+
+    private static String strategy(String index) {
+        int i = Integer.parseInt(index);
+        return i < STRATEGIES.length ? STRATEGIES[i] : index;
+    }
+
+    private static String pad(String text, int length) {
+        if (text.length() >= length) {
+            return text;
+        }
+
+        StringBuilder sb = new StringBuilder(length);
+        sb.append(text);
+        while (sb.length() < length) {
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+}
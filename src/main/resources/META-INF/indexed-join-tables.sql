@@ -0,0 +1,55 @@
+-- Indexes the inverse columns and map keys of the join tables, the owner column already leads the primary key.
+-- Hibernate only reads one statement per line. The embeddable join tables differ between the providers,
+-- so a statement for a table a provider doesn't create fails and is skipped.
+
+CREATE INDEX joined_list_list_id_idx ON joined_list (list_id);
+CREATE INDEX joined_list_1_list1_id_idx ON joined_list_1 (list1_id);
+CREATE INDEX joined_list_2_list2_id_idx ON joined_list_2 (list2_id);
+CREATE INDEX joined_map_map_id_idx ON joined_map (map_id);
+CREATE INDEX joined_map_map_key_idx ON joined_map (map_KEY);
+CREATE INDEX joined_map_1_map1_id_idx ON joined_map_1 (map1_id);
+CREATE INDEX joined_map_1_map1_key_idx ON joined_map_1 (map1_KEY);
+CREATE INDEX joined_map_2_map2_id_idx ON joined_map_2 (map2_id);
+CREATE INDEX joined_map_2_map2_key_idx ON joined_map_2 (map2_KEY);
+CREATE INDEX joined_embeddable_list_list_id_idx ON joined_embeddable_list (list_id);
+CREATE INDEX joined_embeddable_1_list_sub1list_id_idx ON joined_embeddable_1_list (sub1List_id);
+CREATE INDEX joined_embeddable_2_list_sub2list_id_idx ON joined_embeddable_2_list (sub2List_id);
+CREATE INDEX joined_embeddable_map_map_id_idx ON joined_embeddable_map (map_id);
+CREATE INDEX joined_embeddable_1_map_sub1map_id_idx ON joined_embeddable_1_map (sub1Map_id);
+CREATE INDEX joined_embeddable_2_map_sub2map_id_idx ON joined_embeddable_2_map (sub2Map_id);
+
+CREATE INDEX single_table_list_list_id_idx ON single_table_list (list_id);
+CREATE INDEX single_table_list_1_list1_id_idx ON single_table_list_1 (list1_id);
+CREATE INDEX single_table_list_2_list2_id_idx ON single_table_list_2 (list2_id);
+CREATE INDEX single_table_map_map_id_idx ON single_table_map (map_id);
+CREATE INDEX single_table_map_map_key_idx ON single_table_map (map_KEY);
+CREATE INDEX single_table_map_1_map1_id_idx ON single_table_map_1 (map1_id);
+CREATE INDEX single_table_map_1_map1_key_idx ON single_table_map_1 (map1_KEY);
+CREATE INDEX single_table_map_2_map2_id_idx ON single_table_map_2 (map2_id);
+CREATE INDEX single_table_map_2_map2_key_idx ON single_table_map_2 (map2_KEY);
+CREATE INDEX single_table_embeddable_list_list_id_idx ON single_table_embeddable_list (list_id);
+CREATE INDEX single_table_embeddable_1_list_sub1list_id_idx ON single_table_embeddable_1_list (sub1List_id);
+CREATE INDEX single_table_embeddable_2_list_sub2list_id_idx ON single_table_embeddable_2_list (sub2List_id);
+CREATE INDEX single_table_embeddable_map_map_id_idx ON single_table_embeddable_map (map_id);
+CREATE INDEX single_table_embeddable_1_map_sub1map_id_idx ON single_table_embeddable_1_map (sub1Map_id);
+CREATE INDEX single_table_embeddable_2_map_sub2map_id_idx ON single_table_embeddable_2_map (sub2Map_id);
+
+CREATE INDEX table_per_class_sub_1_list_list_id_idx ON table_per_class_sub_1_list (list_id);
+CREATE INDEX table_per_class_sub_1_list_1_list1_id_idx ON table_per_class_sub_1_list_1 (list1_id);
+CREATE INDEX table_per_class_sub_1_map_map_id_idx ON table_per_class_sub_1_map (map_id);
+CREATE INDEX table_per_class_sub_1_map_map_key_idx ON table_per_class_sub_1_map (map_KEY);
+CREATE INDEX table_per_class_sub_1_map_1_map1_id_idx ON table_per_class_sub_1_map_1 (map1_id);
+CREATE INDEX table_per_class_sub_1_map_1_map1_key_idx ON table_per_class_sub_1_map_1 (map1_KEY);
+CREATE INDEX table_per_class_sub_2_list_list_id_idx ON table_per_class_sub_2_list (list_id);
+CREATE INDEX table_per_class_sub_2_list_2_list2_id_idx ON table_per_class_sub_2_list_2 (list2_id);
+CREATE INDEX table_per_class_sub_2_map_map_id_idx ON table_per_class_sub_2_map (map_id);
+CREATE INDEX table_per_class_sub_2_map_map_key_idx ON table_per_class_sub_2_map (map_KEY);
+CREATE INDEX table_per_class_sub_2_map_2_map2_id_idx ON table_per_class_sub_2_map_2 (map2_id);
+CREATE INDEX table_per_class_sub_2_map_2_map2_key_idx ON table_per_class_sub_2_map_2 (map2_KEY);
+CREATE INDEX tpc_embeddable_list_list_id_idx ON tpc_embeddable_list (list_id);
+CREATE INDEX table_per_class_embeddable_list_list_id_idx ON table_per_class_embeddable_list (list_id);
+CREATE INDEX table_per_class_embeddable_1_list_sub1list_id_idx ON table_per_class_embeddable_1_list (sub1List_id);
+CREATE INDEX table_per_class_embeddable_2_list_sub2list_id_idx ON table_per_class_embeddable_2_list (sub2List_id);
+CREATE INDEX table_per_class_embeddable_map_map_id_idx ON table_per_class_embeddable_map (map_id);
+CREATE INDEX table_per_class_embeddable_1_map_sub1map_id_idx ON table_per_class_embeddable_1_map (sub1Map_id);
+CREATE INDEX table_per_class_embeddable_2_map_sub2map_id_idx ON table_per_class_embeddable_2_map (sub2Map_id);
@@ -0,0 +1,83 @@
+package jpa.test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import org.datanucleus.api.jpa.JPAQuery;
+
+final class JpaProvider {
+    
+    static final String NAME = "datanucleus";
+    // Statements aren't recorded, so the statement metrics are left out
+    static final boolean RECORDS_STATEMENTS = false;
+    
+    private JpaProvider() {
+    }
+    
+    static String getVersion() {
+        // Null when the jar manifest doesn't contain it
+        return org.datanucleus.api.jpa.PersistenceProviderImpl.class.getPackage().getImplementationVersion();
+    }
+    
+    static Map<String, Object> getProperties() {
+        return new HashMap<>();
+    }
+    
+    static Map<String, Object> getSecondLevelCacheProperties() {
+        // The shared cache mode is all it takes
+        return new HashMap<>();
+    }
+    
+    static Map<String, Object> getQueryResultCacheProperties() {
+        return new HashMap<>();
+    }
+    
+    static Map<String, Object> getBatchWritingProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("datanucleus.rdbms.statementBatchLimit", "50");
+        return properties;
+    }
+    
+    static Map<String, Object> getBatchFetchProperties(String batchFetchType) {
+        // Batch fetching isn't supported
+        return new HashMap<>();
+    }
+    
+    static Map<String, Object> getQueryResultCacheHints() {
+        Map<String, Object> hints = new HashMap<>();
+        hints.put("datanucleus.query.results.cached", true);
+        return hints;
+    }
+    
+    static Map<String, Object> getReadOnlyHints() {
+        // There is no read-only query hint
+        return new HashMap<>();
+    }
+    
+    static List<?> getNamedQueryResultList(EntityManager em, String queryName) {
+        return em.createNamedQuery(queryName).getResultList();
+    }
+    
+    static String getSql(EntityManager em, Query query) {
+        org.datanucleus.store.query.Query<?> internalQuery = query.unwrap(JPAQuery.class).getInternalQuery();
+        // The SQL is only generated when the query is compiled
+        internalQuery.compile();
+        return (String) internalQuery.getNativeQuery();
+    }
+    
+    static void resetMetrics(EntityManagerFactory emf) {
+    }
+    
+    static List<String> getStatements(EntityManagerFactory emf) {
+        // Statements aren't recorded
+        return Collections.emptyList();
+    }
+    
+    static Map<String, Object> getMetrics(EntityManagerFactory emf) {
+        return Collections.emptyMap();
+    }
+}
@@ -0,0 +1,181 @@
+package jpa.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import org.eclipse.persistence.annotations.BatchFetchType;
+import org.eclipse.persistence.config.BatchWriting;
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.PersistenceUnitProperties;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.config.SessionCustomizer;
+import org.eclipse.persistence.descriptors.ClassDescriptor;
+import org.eclipse.persistence.jpa.JpaEntityManager;
+import org.eclipse.persistence.jpa.JpaHelper;
+import org.eclipse.persistence.jpa.JpaQuery;
+import org.eclipse.persistence.mappings.DatabaseMapping;
+import org.eclipse.persistence.mappings.ObjectReferenceMapping;
+import org.eclipse.persistence.queries.DatabaseQuery;
+import org.eclipse.persistence.sessions.DatabaseRecord;
+import org.eclipse.persistence.sessions.Session;
+import org.eclipse.persistence.sessions.SessionProfiler;
+import org.eclipse.persistence.tools.profiler.PerformanceMonitor;
+
+final class JpaProvider {
+    
+    static final String NAME = "eclipselink";
+    static final boolean RECORDS_STATEMENTS = true;
+    
+    private JpaProvider() {
+    }
+    
+    static String getVersion() {
+        return org.eclipse.persistence.Version.getVersion();
+    }
+    
+    static Map<String, Object> getProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.PROFILER, StatementMonitor.class.getName());
+        return properties;
+    }
+    
+    static Map<String, Object> getSecondLevelCacheProperties() {
+        // The shared cache mode is all it takes
+        return new HashMap<>();
+    }
+    
+    static Map<String, Object> getQueryResultCacheProperties() {
+        return new HashMap<>();
+    }
+    
+    static Map<String, Object> getBatchWritingProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceUnitProperties.BATCH_WRITING, BatchWriting.JDBC);
+        properties.put(PersistenceUnitProperties.BATCH_WRITING_SIZE, "50");
+        return properties;
+    }
+    
+    static Map<String, Object> getBatchFetchProperties(String batchFetchType) {
+        Map<String, Object> properties = new HashMap<>();
+        // There is no property for a default, so the customizer sets the type on every ManyToOne mapping
+        properties.put(PersistenceUnitProperties.SESSION_CUSTOMIZER, BatchFetchCustomizer.class.getName());
+        properties.put(BatchFetchCustomizer.BATCH_FETCH_TYPE, batchFetchType);
+        return properties;
+    }
+    
+    static Map<String, Object> getQueryResultCacheHints() {
+        Map<String, Object> hints = new HashMap<>();
+        hints.put(QueryHints.QUERY_RESULTS_CACHE, HintValues.TRUE);
+        return hints;
+    }
+    
+    static Map<String, Object> getReadOnlyHints() {
+        Map<String, Object> hints = new HashMap<>();
+        hints.put(QueryHints.READ_ONLY, HintValues.TRUE);
+        return hints;
+    }
+    
+    static List<?> getNamedQueryResultList(EntityManager em, String queryName) {
+        // The unit of work of an entity manager never looks up the query results cache, only the server session does,
+        // so the uncached queries run there as well to compare the same execution path
+        return (List<?>) JpaHelper.getServerSession(em.getEntityManagerFactory()).executeQuery(queryName);
+    }
+    
+    static String getSql(EntityManager em, Query query) {
+        DatabaseQuery databaseQuery = query.unwrap(JpaQuery.class).getDatabaseQuery();
+        Session session = em.unwrap(JpaEntityManager.class).getActiveSession();
+        // The SQL is only generated when the query is prepared for execution
+        databaseQuery.prepareCall(session, new DatabaseRecord());
+        // Some platforms bind literals, the translated SQL contains them inline
+        return databaseQuery.getTranslatedSQLString(session, new DatabaseRecord());
+    }
+    
+    static void resetMetrics(EntityManagerFactory emf) {
+        PerformanceMonitor monitor = getPerformanceMonitor(emf);
+        // We collect the results ourselves, so don't dump them to the log
+        monitor.setDumpTime(Long.MAX_VALUE);
+        monitor.getOperationTimings().clear();
+        ((StatementMonitor) monitor).statements.clear();
+    }
+    
+    static List<String> getStatements(EntityManagerFactory emf) {
+        return new ArrayList<>(((StatementMonitor) getPerformanceMonitor(emf)).statements);
+    }
+    
+    static Map<String, Object> getMetrics(EntityManagerFactory emf) {
+        Map<String, Object> timings = getPerformanceMonitor(emf).getOperationTimings();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        // Timings are in nanoseconds
+        metrics.put("queryPreparationNanos", get(timings, SessionProfiler.QueryPreparation));
+        metrics.put("sqlGenerationNanos", get(timings, SessionProfiler.SqlGeneration));
+        metrics.put("sqlPrepareNanos", get(timings, SessionProfiler.SqlPrepare));
+        metrics.put("statementExecuteNanos", get(timings, SessionProfiler.StatementExecute));
+        metrics.put("rowFetchNanos", get(timings, SessionProfiler.RowFetch));
+        metrics.put("objectBuildingNanos", get(timings, SessionProfiler.ObjectBuilding));
+        metrics.put("statementCount", get(timings, StatementMonitor.STATEMENT_COUNT));
+        metrics.put("cacheHits", get(timings, SessionProfiler.CacheHits));
+        metrics.put("cacheMisses", get(timings, SessionProfiler.CacheMisses));
+        return metrics;
+    }
+    
+    private static Object get(Map<String, Object> timings, String operation) {
+        // Operations that never happened are absent
+        Object value = timings.get(operation);
+        return value == null ? 0L : value;
+    }
+    
+    private static PerformanceMonitor getPerformanceMonitor(EntityManagerFactory emf) {
+        return (PerformanceMonitor) JpaHelper.getServerSession(emf).getProfiler();
+    }
+    
+    /**
+     * The performance monitor only sums up the time of the statement executions, this one also counts and records them.
+     * The SQL is the one of the query, for queries with multiple calls that is the SQL of the first call.
+     */
+    public static class StatementMonitor extends PerformanceMonitor {
+        
+        static final String STATEMENT_COUNT = "Counter:StatementExecute";
+        
+        final List<String> statements = Collections.synchronizedList(new ArrayList<String>());
+        
+        @Override
+        public void endOperationProfile(String operationName, DatabaseQuery query, int weight) {
+            super.endOperationProfile(operationName, query, weight);
+            if (SessionProfiler.StatementExecute.equals(operationName) && weight <= getProfileWeight()) {
+                synchronized (operationTimings) {
+                    Long count = (Long) operationTimings.get(STATEMENT_COUNT);
+                    operationTimings.put(STATEMENT_COUNT, count == null ? 1L : count + 1);
+                }
+                statements.add(query == null ? null : query.getSQLString());
+                QueryEvents.statementExecuted();
+            }
+        }
+    }
+    
+    /**
+     * Batch fetches the ManyToOne and OneToOne relationships like a <code>@BatchFetch</code> on every such mapping would, including the ones of embeddables.
+     */
+    public static class BatchFetchCustomizer implements SessionCustomizer {
+        
+        static final String BATCH_FETCH_TYPE = "jpa.test.batchFetchType";
+        
+        @Override
+        public void customize(Session session) {
+            BatchFetchType type = BatchFetchType.valueOf((String) session.getProperty(BATCH_FETCH_TYPE));
+            for (ClassDescriptor descriptor : session.getDescriptors().values()) {
+                for (DatabaseMapping mapping : descriptor.getMappings()) {
+                    if (mapping instanceof ObjectReferenceMapping) {
+                        ((ObjectReferenceMapping) mapping).useBatchReading();
+                        ((ObjectReferenceMapping) mapping).setBatchFetchType(type);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package jpa.test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Filter;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.stat.Statistics;
+
+final class JpaProvider {
+    
+    static final String NAME = "hibernate";
+    static final boolean RECORDS_STATEMENTS = true;
+    
+    private JpaProvider() {
+    }
+    
+    static String getVersion() {
+        return org.hibernate.Version.getVersionString();
+    }
+    
+    static Map<String, Object> getProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.generate_statistics", "true");
+        properties.put("hibernate.session_factory.statement_inspector", new StatementRecorder());
+        if (QueryEvents.ENABLED) {
+            properties.put("hibernate.session.events.auto", StatementExecutionListener.class.getName());
+        }
+        return properties;
+    }
+    
+    static Map<String, Object> getSecondLevelCacheProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.cache.use_second_level_cache", "true");
+        properties.put("hibernate.cache.region.factory_class", "org.hibernate.cache.ehcache.EhCacheRegionFactory");
+        return properties;
+    }
+    
+    static Map<String, Object> getQueryResultCacheProperties() {
+        Map<String, Object> properties = getSecondLevelCacheProperties();
+        properties.put("hibernate.cache.use_query_cache", "true");
+        return properties;
+    }
+    
+    static Map<String, Object> getBatchWritingProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.jdbc.batch_size", "50");
+        // Otherwise the inserts of different entity types interleave and every batch only contains a single statement
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
+        return properties;
+    }
+    
+    static Map<String, Object> getBatchFetchProperties(String batchFetchType) {
+        Map<String, Object> properties = new HashMap<>();
+        // Hibernate only batches with IN lists, so the type doesn't matter
+        properties.put("hibernate.default_batch_fetch_size", "50");
+        return properties;
+    }
+    
+    static Map<String, Object> getQueryResultCacheHints() {
+        Map<String, Object> hints = new HashMap<>();
+        hints.put("org.hibernate.cacheable", true);
+        return hints;
+    }
+    
+    static Map<String, Object> getReadOnlyHints() {
+        Map<String, Object> hints = new HashMap<>();
+        hints.put("org.hibernate.readOnly", true);
+        return hints;
+    }
+    
+    static List<?> getNamedQueryResultList(EntityManager em, String queryName) {
+        return em.createNamedQuery(queryName).getResultList();
+    }
+    
+    static String getSql(EntityManager em, Query query) {
+        String hql = query.unwrap(org.hibernate.query.Query.class).getQueryString();
+        SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class);
+        // Only queries for unmapped supertypes are split into multiple statements
+        return sessionFactory.getQueryPlanCache().getHQLQueryPlan(hql, false, Collections.<String, Filter>emptyMap()).getSqlStrings()[0];
+    }
+    
+    static void resetMetrics(EntityManagerFactory emf) {
+        getStatistics(emf).clear();
+        getStatementRecorder(emf).statements.clear();
+    }
+    
+    static List<String> getStatements(EntityManagerFactory emf) {
+        return new ArrayList<>(getStatementRecorder(emf).statements);
+    }
+    
+    static Map<String, Object> getMetrics(EntityManagerFactory emf) {
+        Statistics statistics = getStatistics(emf);
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("queryExecutionCount", statistics.getQueryExecutionCount());
+        metrics.put("queryExecutionMaxTime", statistics.getQueryExecutionMaxTime());
+        metrics.put("prepareStatementCount", statistics.getPrepareStatementCount());
+        // Same as the prepared statements, but under the name the EclipseLink monitor uses
+        metrics.put("statementCount", statistics.getPrepareStatementCount());
+        metrics.put("entityLoadCount", statistics.getEntityLoadCount());
+        metrics.put("entityFetchCount", statistics.getEntityFetchCount());
+        metrics.put("collectionLoadCount", statistics.getCollectionLoadCount());
+        metrics.put("collectionFetchCount", statistics.getCollectionFetchCount());
+        metrics.put("cacheHits", statistics.getSecondLevelCacheHitCount());
+        metrics.put("cacheMisses", statistics.getSecondLevelCacheMissCount());
+        metrics.put("cachePuts", statistics.getSecondLevelCachePutCount());
+        metrics.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        metrics.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        metrics.put("queryCachePuts", statistics.getQueryCachePutCount());
+        // Query plan cache statistics only exist since Hibernate 5.4
+        metrics.put("queryPlanCacheHitCount", getOptionalCount(statistics, "getQueryPlanCacheHitCount"));
+        metrics.put("queryPlanCacheMissCount", getOptionalCount(statistics, "getQueryPlanCacheMissCount"));
+        return metrics;
+    }
+    
+    private static Statistics getStatistics(EntityManagerFactory emf) {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+    
+    private static StatementRecorder getStatementRecorder(EntityManagerFactory emf) {
+        return (StatementRecorder) emf.unwrap(SessionFactoryImplementor.class).getSessionFactoryOptions().getStatementInspector();
+    }
+    
+    private static Long getOptionalCount(Statistics statistics, String methodName) {
+        try {
+            Method method = Statistics.class.getMethod(methodName);
+            return (Long) method.invoke(statistics);
+        } catch (NoSuchMethodException ex) {
+            return null;
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Could not read statistic " + methodName, ex);
+        }
+    }
+    
+    /**
+     * Records the SQL of every statement Hibernate prepares.
+     */
+    static class StatementRecorder implements StatementInspector {
+        
+        final List<String> statements = Collections.synchronizedList(new ArrayList<String>());
+        
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+    
+    /**
+     * Reports the end of every statement execution for the flight recorder events of the queries.
+     */
+    public static class StatementExecutionListener extends BaseSessionEventListener {
+        
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            QueryEvents.statementExecuted();
+        }
+    }
+}
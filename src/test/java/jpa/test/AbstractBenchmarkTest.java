@@ -0,0 +1,42 @@
+package jpa.test;
+
+import java.util.Map;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+/**
+ * Base class of the tests that run once per inheritance strategy and measure their queries with {@link Benchmark},
+ * usually on the fixture scaled by {@link #scaleFixture()}.
+ */
+@RunWith(Parameterized.class)
+public abstract class AbstractBenchmarkTest extends AbstractTreatVariationsTest {
+
+    public AbstractBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Parameterized.Parameters
+    public static Object[] getParameters() {
+        return new Object[] {
+            new Object[] { "Joined", "s" },
+            new Object[] { "SingleTable", "st" },
+            new Object[] { "TablePerClass", "tpc" }
+        };
+    }
+
+    /**
+     * Adds the copies of the object graph given by {@link Benchmark#getScale()} to the fixture.
+     */
+    protected void scaleFixture() throws Exception {
+        scaleFixture(Benchmark.getScale());
+    }
+
+    /**
+     * Measures the given operation and adds its latency metrics, prefixed with the given name, to the metrics of the test.
+     */
+    protected Map<String, Object> benchmark(String name, Benchmark.Operation operation) throws Exception {
+        Map<String, Object> result = Benchmark.measure(name, operation);
+        metrics.putAll(result);
+        return result;
+    }
+}
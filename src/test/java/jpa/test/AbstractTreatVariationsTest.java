@@ -1,8 +1,10 @@
 
 package jpa.test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.persistence.EntityManager;
@@ -26,13 +28,32 @@ import jpa.test.entities.TablePerClassSub2;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.ClassRule;
 import org.junit.FixMethodOrder;
+import org.junit.Rule;
+import org.junit.rules.TestName;
+import org.junit.rules.TestRule;
+import org.junit.rules.TestWatcher;
+import org.junit.runner.Description;
 import org.junit.runners.MethodSorters;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public abstract class AbstractTreatVariationsTest {
     
+    @ClassRule
+    public static final TestRule METRICS_WRITER = new TestWatcher() {
+        @Override
+        protected void finished(Description description) {
+            TestMetrics.write(description.getTestClass());
+        }
+    };
+    
+    @Rule
+    public final TestName testName = new TestName();
+    
     protected EntityManagerFactory emf;
+    protected final Map<String, Object> metrics = new LinkedHashMap<>();
+    private long allocatedBytesBefore;
     
     protected final String strategy;
     protected final String objectPrefix;
@@ -44,8 +65,12 @@ public abstract class AbstractTreatVariationsTest {
     
     @Before
     public void setup() {
-        emf = Persistence.createEntityManagerFactory("TestPU");
+        long start = System.nanoTime();
+        emf = Persistence.createEntityManagerFactory(getPersistenceUnitName(), getProperties());
         EntityManager em = emf.createEntityManager();
+        // Providers like EclipseLink only deploy the persistence unit on the first entity manager
+        metrics.put("bootstrapMillis", (System.nanoTime() - start) / 1_000_000);
+        start = System.nanoTime();
         EntityTransaction tx = em.getTransaction();
         tx.begin();
         
@@ -101,9 +126,45 @@ public abstract class AbstractTreatVariationsTest {
         
         tx.commit();
         em.close();
+        metrics.put("fixtureMillis", (System.nanoTime() - start) / 1_000_000);
+        
+        // Only measure what the test itself does
+        JpaProvider.resetMetrics(emf);
+        allocatedBytesBefore = TestMetrics.getAllocatedBytes();
     }
     
-    private void persist(
+    /**
+     * Adds the given number of copies of the object graph of the tested strategy for benchmarks on scaled data.
+     * Like for the fixture, the provider metrics only cover what happens afterwards.
+     */
+    protected void scaleFixture(int copies) throws Exception {
+        Class<?> sub1Class = Class.forName("jpa.test.entities." + strategy + "Sub1");
+        Class<?> sub2Class = Class.forName("jpa.test.entities." + strategy + "Sub2");
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        
+        IntIdEntity i1 = new IntIdEntity("scale");
+        em.persist(i1);
+        for (int i = 0; i < copies; i++) {
+            persist(
+                em,
+                i1,
+                (Sub1) sub1Class.getConstructor(String.class).newInstance("scale1"),
+                (Sub2) sub2Class.getConstructor(String.class).newInstance("scale2"),
+                (Sub1) sub1Class.getConstructor(String.class).newInstance("scale1.parent"),
+                (Sub2) sub2Class.getConstructor(String.class).newInstance("scale2.parent")
+            );
+        }
+        
+        tx.commit();
+        em.close();
+        
+        JpaProvider.resetMetrics(emf);
+        allocatedBytesBefore = TestMetrics.getAllocatedBytes();
+    }
+    
+    protected void persist(
             EntityManager em,
             IntIdEntity i1,
             Sub1<? extends Base<?, ?>, ? extends BaseEmbeddable<?>, ? extends Sub1Embeddable<?>> s1,
@@ -176,6 +237,110 @@ public abstract class AbstractTreatVariationsTest {
         ((Map<Base<?, ?>, Base<?, ?>>) s2Parent.getEmbeddable2().getSub2Map()).put(s1, s1);
     }
     
+    /**
+     * Returns the persistence unit to test, by default the one with AUTO id generation.
+     * With the system property <code>pooledIds</code>, the ids are generated by pooled sequences instead
+     * and with <code>indexedSchema</code> the discriminator, foreign key and join table columns are indexed.
+     * The system property <code>discriminatorType</code> set to INTEGER or CHAR replaces the discriminator of the single table hierarchy.
+     * The shared cache mode ENABLE_SELECTIVE needs the persistence unit that marks the Base hierarchies cacheable.
+     * Every variation has its own persistence unit, so combining them fails instead of silently testing only one of them.
+     */
+    protected String getPersistenceUnitName() {
+        List<String> persistenceUnitNames = new ArrayList<>();
+        if ("ENABLE_SELECTIVE".equals(getSharedCacheMode())) {
+            persistenceUnitNames.add("CacheablePU");
+        }
+        if (Boolean.getBoolean("indexedSchema")) {
+            persistenceUnitNames.add("IndexedPU");
+        }
+        String discriminatorType = System.getProperty("discriminatorType");
+        if ("INTEGER".equals(discriminatorType)) {
+            persistenceUnitNames.add("IntegerDiscriminatorPU");
+        } else if ("CHAR".equals(discriminatorType)) {
+            persistenceUnitNames.add("CharDiscriminatorPU");
+        } else if (discriminatorType != null && !"STRING".equals(discriminatorType)) {
+            throw new IllegalStateException("Unsupported discriminatorType: " + discriminatorType);
+        }
+        if (Boolean.getBoolean("pooledIds")) {
+            persistenceUnitNames.add("PooledIdPU");
+        }
+        
+        if (persistenceUnitNames.size() > 1) {
+            throw new IllegalStateException("The persistence units " + persistenceUnitNames + " can't be combined, choose one of the variations");
+        }
+        return persistenceUnitNames.isEmpty() ? "TestPU" : persistenceUnitNames.get(0);
+    }
+    
+    protected Map<String, Object> getProperties() {
+        Map<String, Object> properties = JpaProvider.getProperties();
+        properties.putAll(Database.getProperties());
+        String sharedCacheMode = getSharedCacheMode();
+        
+        if (sharedCacheMode != null) {
+            properties.put("javax.persistence.sharedCache.mode", sharedCacheMode);
+            properties.putAll(JpaProvider.getSecondLevelCacheProperties());
+        }
+        if (isQueryResultCacheEnabled()) {
+            properties.putAll(JpaProvider.getQueryResultCacheProperties());
+        }
+        if (isBatchWritingEnabled()) {
+            properties.putAll(JpaProvider.getBatchWritingProperties());
+        }
+        if (getBatchFetchType() != null) {
+            properties.putAll(JpaProvider.getBatchFetchProperties(getBatchFetchType()));
+        }
+        
+        return properties;
+    }
+    
+    /**
+     * Returns whether the queries of {@link #list(String, Class)} use the provider query result cache.
+     * By default it is taken from the system property <code>queryResultCache</code>.
+     */
+    protected boolean isQueryResultCacheEnabled() {
+        return Boolean.getBoolean("queryResultCache");
+    }
+    
+    /**
+     * Returns whether the queries of {@link #list(String, Class)} are read-only, so that the provider keeps no snapshots of the results for dirty checking.
+     * By default it is taken from the system property <code>readOnly</code>.
+     */
+    protected boolean isReadOnlyEnabled() {
+        return Boolean.getBoolean("readOnly");
+    }
+    
+    /**
+     * Returns whether the SQL of the query of {@link #list(String, Class)} is recorded as metric for comparing the SQL of the providers.
+     * By default it is taken from the system property <code>captureSql</code>.
+     */
+    protected boolean isSqlCaptureEnabled() {
+        return Boolean.getBoolean("captureSql");
+    }
+    
+    /**
+     * Returns whether the provider uses JDBC batching for inserts and updates e.g. when loading the fixture.
+     * By default it is taken from the system property <code>batchWriting</code>.
+     */
+    protected boolean isBatchWritingEnabled() {
+        return Boolean.getBoolean("batchWriting");
+    }
+    
+    /**
+     * Returns how the provider batch fetches lazy relationships i.e. IN, JOIN or EXISTS or null for no batch fetching.
+     * By default it is taken from the system property <code>batchFetch</code>, only EclipseLink distinguishes the types.
+     */
+    protected String getBatchFetchType() {
+        return System.getProperty("batchFetch");
+    }
+    
+    /**
+     * Returns the shared cache mode overriding the NONE of the persistence unit e.g. ENABLE_SELECTIVE or ALL.
+     * By default it is taken from the system property <code>sharedCacheMode</code>.
+     */
+    protected String getSharedCacheMode() {
+        return System.getProperty("sharedCacheMode");
+    }
+    
     private void persist(
             EntityManager em,
             IntIdEntity i1) {
@@ -187,8 +352,20 @@ public abstract class AbstractTreatVariationsTest {
     @After
     public void tearDown() {
         if (emf.isOpen()) {
-            emf.close();
+            closeEntityManagerFactory();
+        }
+        TestMetrics.record(getClass(), testName.getMethodName(), metrics);
+    }
+    
+    protected void closeEntityManagerFactory() {
+        if (allocatedBytesBefore >= 0) {
+            metrics.put("allocatedBytes", TestMetrics.getAllocatedBytes() - allocatedBytesBefore);
         }
+        metrics.putAll(JpaProvider.getMetrics(emf));
+        if (JpaProvider.RECORDS_STATEMENTS) {
+            metrics.put("joinedTables", TestMetrics.countJoinedTables(JpaProvider.getStatements(emf)));
+        }
+        emf.close();
     }
     
     /************************************************************
@@ -201,15 +378,46 @@ public abstract class AbstractTreatVariationsTest {
         // EclipseLink issues 1 query, all successful
         // Hibernate issues 1 query, all successful
         // DataNucleus fails
+        Object event = QueryEvents.begin(QueryEvents.CREATE_QUERY, testName.getMethodName(), strategy, query);
         TypedQuery<T> q = em.createQuery(query, clazz);
+        QueryEvents.end(event);
+        if (isQueryResultCacheEnabled()) {
+            cacheable(q);
+        }
+        if (isReadOnlyEnabled()) {
+            readOnly(q);
+        }
         
-        List<T> bases = q.getResultList();
+        event = QueryEvents.begin(QueryEvents.GET_RESULT_LIST, testName.getMethodName(), strategy, query);
+        List<T> bases;
+        try {
+            bases = q.getResultList();
+        } finally {
+            QueryEvents.end(event);
+        }
+        if (isSqlCaptureEnabled()) {
+            metrics.put("sql", JpaProvider.getSql(em, q));
+        }
         em.close();
         // Closing emf since eclipselink would do lazy loading even with closed entity manager!
-        emf.close();
+        closeEntityManagerFactory();
         return bases;
     }
     
+    protected <T> TypedQuery<T> cacheable(TypedQuery<T> query) {
+        for (Map.Entry<String, Object> hint : JpaProvider.getQueryResultCacheHints().entrySet()) {
+            query.setHint(hint.getKey(), hint.getValue());
+        }
+        return query;
+    }
+    
+    protected <T> TypedQuery<T> readOnly(TypedQuery<T> query) {
+        for (Map.Entry<String, Object> hint : JpaProvider.getReadOnlyHints().entrySet()) {
+            query.setHint(hint.getKey(), hint.getValue());
+        }
+        return query;
+    }
+    
     protected void assertRemoved(List<Object[]> list, Object[] expected) {
         Iterator<Object[]> iter = list.iterator();
         while (iter.hasNext()) {
@@ -0,0 +1,137 @@
+package jpa.test;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import jpa.test.entities.Base;
+import jpa.test.entities.IntIdEntity;
+import jpa.test.entities.Sub1;
+import jpa.test.entities.Sub2;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Walks the ManyToOne relationships of all roots after a root query, which without batch fetching means a statement per relationship.
+ * Hibernate only has one batch fetch type, so its IN, JOIN and EXISTS cases are the same.
+ */
+public class BatchFetchBenchmarkTest extends AbstractBenchmarkTest {
+
+    public BatchFetchBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Override
+    protected String getBatchFetchType() {
+        String methodName = testName.getMethodName();
+        if (methodName.startsWith("inBatch")) {
+            return "IN";
+        } else if (methodName.startsWith("joinBatch")) {
+            return "JOIN";
+        } else if (methodName.startsWith("existsBatch")) {
+            return "EXISTS";
+        }
+        // The unbatched variant is the control, so it must not pick up -DbatchFetch
+        return null;
+    }
+
+    @Before
+    public void scaleData() throws Exception {
+        // Enough roots so that the round trips per relationship show in the latency
+        scaleFixture();
+    }
+
+    @Test
+    public void unbatchedFetch() throws Exception {
+        measureRelationships();
+    }
+
+    @Test
+    public void inBatchFetch() throws Exception {
+        measureRelationships();
+    }
+
+    @Test
+    public void joinBatchFetch() throws Exception {
+        measureRelationships();
+    }
+
+    @Test
+    public void existsBatchFetch() throws Exception {
+        measureRelationships();
+    }
+
+    private void measureRelationships() throws Exception {
+        measureRelationship("parent");
+        measureRelationship("subtypeParent");
+        measureRelationship("relation");
+    }
+
+    /**
+     * Puts the statements of the root query, the statements for walking the relationship of all roots afterwards and the time for both.
+     * Providers that load the relationships eagerly, like EclipseLink without weaving, already issue the statements during the query.
+     */
+    private void measureRelationship(final String relationship) throws Exception {
+        EntityManager em = emf.createEntityManager();
+        try {
+            int start = JpaProvider.getStatements(emf).size();
+            List<Base<?, ?>> roots = load(em);
+            int queryStatements = JpaProvider.getStatements(emf).size() - start;
+            walk(roots, relationship);
+
+            if (JpaProvider.RECORDS_STATEMENTS) {
+                metrics.put(relationship + "QueryStatements", queryStatements);
+                metrics.put(relationship + "LazyStatements", JpaProvider.getStatements(emf).size() - start - queryStatements);
+            }
+        } finally {
+            em.close();
+        }
+
+        benchmark(relationship, new Benchmark.Operation() {
+            @Override
+            public void run() {
+                EntityManager em = emf.createEntityManager();
+                try {
+                    walk(load(em), relationship);
+                } finally {
+                    em.close();
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Base<?, ?>> load(EntityManager em) {
+        return (List<Base<?, ?>>) em.createQuery("SELECT b FROM " + strategy + "Base b WHERE b.parent IS NOT NULL").getResultList();
+    }
+
+    /**
+     * Accesses the parent, the parent1/parent2 or the relation1/relation2 of every root, getting the name initializes proxies.
+     */
+    private static void walk(List<Base<?, ?>> roots, String relationship) {
+        for (Base<?, ?> root : roots) {
+            switch (relationship) {
+                case "parent":
+                    name(root.getParent());
+                    break;
+                case "subtypeParent":
+                    if (root instanceof Sub1<?, ?, ?>) {
+                        name(((Sub1<?, ?, ?>) root).getParent1());
+                    } else {
+                        name(((Sub2<?, ?, ?>) root).getParent2());
+                    }
+                    break;
+                default:
+                    IntIdEntity relation = root instanceof Sub1<?, ?, ?> ? ((Sub1<?, ?, ?>) root).getRelation1() : ((Sub2<?, ?, ?>) root).getRelation2();
+                    if (relation != null) {
+                        relation.getName();
+                    }
+                    break;
+            }
+        }
+    }
+
+    private static void name(Base<?, ?> base) {
+        if (base != null) {
+            base.getName();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package jpa.test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measures the latency of an operation over a number of iterations after some warmup iterations.
+ * The defaults are kept low so that the benchmarks don't slow down the normal test run,
+ * use the system properties <code>benchmark.warmup</code> and <code>benchmark.iterations</code> for real measurements.
+ */
+public final class Benchmark {
+
+    private Benchmark() {
+    }
+
+    public static interface Operation {
+        public void run() throws Exception;
+    }
+
+    public static int getWarmupIterations() {
+        return Integer.getInteger("benchmark.warmup", 5);
+    }
+
+    public static int getIterations() {
+        return Integer.getInteger("benchmark.iterations", 20);
+    }
+
+    /**
+     * Returns how many copies of the object graph the benchmarks on scaled data add to the fixture.
+     */
+    public static int getScale() {
+        return Integer.getInteger("benchmark.scale", 50);
+    }
+
+    public static Map<String, Object> measure(String name, Operation operation) throws Exception {
+        return measure(name, getWarmupIterations(), getIterations(), operation);
+    }
+
+    /**
+     * Returns the average, median, 95th percentile and max latency in microseconds as well as the throughput,
+     * each prefixed with the given name.
+     */
+    public static Map<String, Object> measure(String name, int warmupIterations, int iterations, Operation operation) throws Exception {
+        for (int i = 0; i < warmupIterations; i++) {
+            operation.run();
+        }
+
+        long[] nanos = new long[iterations];
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operation.run();
+            nanos[i] = System.nanoTime() - start;
+            total += nanos[i];
+        }
+
+        Arrays.sort(nanos);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(name + "AvgMicros", iterations == 0 ? 0 : total / iterations / 1000);
+        result.put(name + "P50Micros", percentile(nanos, 50) / 1000);
+        result.put(name + "P95Micros", percentile(nanos, 95) / 1000);
+        result.put(name + "MaxMicros", iterations == 0 ? 0 : nanos[iterations - 1] / 1000);
+        result.put(name + "OpsPerSecond", total == 0 ? 0 : iterations * 1_000_000_000L / total);
+        return result;
+    }
+
+    /**
+     * Returns the bytes an execution of the operation allocates, prefixed with the given name, or nothing if the JVM can't tell.
+     * Call it after {@link #measure(String, Operation)}, the allocations are measured in separate executions so that they don't include the warmup.
+     */
+    public static Map<String, Object> measureAllocations(String name, Operation operation) throws Exception {
+        Map<String, Object> result = new LinkedHashMap<>();
+        int iterations = getIterations();
+        long allocatedBytes = TestMetrics.getAllocatedBytes();
+        if (allocatedBytes >= 0 && iterations > 0) {
+            for (int i = 0; i < iterations; i++) {
+                operation.run();
+            }
+            result.put(name + "AllocatedBytes", (TestMetrics.getAllocatedBytes() - allocatedBytes) / iterations);
+        }
+        return result;
+    }
+
+    private static long percentile(long[] sortedNanos, int percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)];
+    }
+}
@@ -0,0 +1,72 @@
+package jpa.test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The embedded database the tests run against, chosen by the profiles <code>hsqldb</code> and <code>derby</code>.
+ * The JDBC settings default to the H2 database of the persistence units.
+ */
+final class Database {
+
+    static final String NAME = System.getProperty("database", "h2");
+    static final String URL = System.getProperty("jdbc.url", "jdbc:h2:mem:test;TRACE_LEVEL_SYSTEM_OUT=2");
+    static final String DRIVER = System.getProperty("jdbc.driver", "org.h2.Driver");
+    static final String USER = System.getProperty("jdbc.user", "test");
+    static final String PASSWORD = System.getProperty("jdbc.password", "test");
+
+    private Database() {
+    }
+
+    static Map<String, Object> getProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("javax.persistence.jdbc.url", URL);
+        properties.put("javax.persistence.jdbc.driver", DRIVER);
+        properties.put("javax.persistence.jdbc.user", USER);
+        properties.put("javax.persistence.jdbc.password", PASSWORD);
+        return properties;
+    }
+
+    /**
+     * Opens a plain JDBC connection to the in-memory database of the tests e.g. to read the database metadata.
+     */
+    static Connection getConnection() throws SQLException {
+        return DriverManager.getConnection(URL, USER, PASSWORD);
+    }
+
+    /**
+     * Returns the statement that explains the query plan of the given SQL or null if the database can't explain a query plan as result set.
+     */
+    static String explain(String sql) {
+        switch (NAME) {
+            case "h2":
+                return "EXPLAIN " + sql;
+            case "hsqldb":
+                return "EXPLAIN PLAN FOR " + sql;
+            default:
+                // Derby only writes the plan of executed statements to the log with derby.language.logQueryPlan
+                return null;
+        }
+    }
+
+    /**
+     * Returns how often the query plan of {@link #explain(String)} scans a whole table.
+     */
+    static int countTableScans(List<?> plan) {
+        String marker = "hsqldb".equals(NAME) ? "access=FULL SCAN" : ".tableScan";
+        int tableScans = 0;
+
+        for (Object line : plan) {
+            String text = line.toString();
+            for (int i = text.indexOf(marker); i != -1; i = text.indexOf(marker, i + 1)) {
+                tableScans++;
+            }
+        }
+
+        return tableScans;
+    }
+}
@@ -0,0 +1,128 @@
+package jpa.test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DiscriminatorBenchmarkTest extends AbstractBenchmarkTest {
+
+    public DiscriminatorBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Override
+    protected String getPersistenceUnitName() {
+        // Only the single table hierarchy is remapped, the other strategies serve as control
+        String methodName = testName.getMethodName();
+        if (methodName.startsWith("integer")) {
+            return "IntegerDiscriminatorPU";
+        } else if (methodName.startsWith("char")) {
+            return "CharDiscriminatorPU";
+        }
+        return super.getPersistenceUnitName();
+    }
+
+    @Before
+    public void scaleData() throws Exception {
+        // The other strategies aren't remapped, so they would only repeat the control run of the STRING discriminator
+        Assume.assumeTrue("SingleTable".equals(strategy) || testName.getMethodName().startsWith("string"));
+        // Enough rows so that the discriminator comparisons dominate the row filtering
+        scaleFixture();
+    }
+
+    @Test
+    public void stringDiscriminatorWhere() throws Exception {
+        measureQueries();
+    }
+
+    @Test
+    public void integerDiscriminatorWhere() throws Exception {
+        measureQueries();
+    }
+
+    @Test
+    public void charDiscriminatorWhere() throws Exception {
+        measureQueries();
+    }
+
+    private void measureQueries() throws Exception {
+        Map<String, String> queries = new LinkedHashMap<>();
+        // The WHERE cases of RootTreatTest
+        queries.put("whereTreatedRootBasic", "SELECT b.name FROM " + strategy + "Base b WHERE COALESCE(TREAT(b AS " + strategy + "Sub1).sub1Value, 0) < 100");
+        queries.put("whereMultipleTreatedRootBasic", "SELECT b.name FROM " + strategy + "Base b WHERE COALESCE(TREAT(b AS " + strategy + "Sub1).sub1Value, 0) < 100 AND COALESCE(TREAT(b AS " + strategy + "Sub2).sub2Value, 0) < 100");
+        queries.put("whereTreatedRootConditionBasic", "SELECT b.name FROM " + strategy + "Base b WHERE TREAT(b AS " + strategy + "Sub1).sub1Value = 101");
+        queries.put("whereMultipleTreatedRootConditionBasic", "SELECT b.name FROM " + strategy + "Base b WHERE TREAT(b AS " + strategy + "Sub1).sub1Value = 101 OR TREAT(b AS " + strategy + "Sub2).sub2Value = 102");
+        queries.put("whereTreatedRootConditionNegated", "SELECT b.name FROM " + strategy + "Base b WHERE NOT(TREAT(b AS " + strategy + "Sub1).sub1Value = 101)");
+        queries.put("whereTreatedRootConditionSuperTypeAccess", "SELECT b.name FROM " + strategy + "Base b WHERE TREAT(b AS " + strategy + "Sub1).value > 100");
+        // The type restrictions a correct treat translation adds, which also work where the treat cases aren't supported
+        queries.put("whereType", "SELECT b.name FROM " + strategy + "Base b WHERE TYPE(b) = " + strategy + "Sub1");
+        queries.put("whereTypeIn", "SELECT b.name FROM " + strategy + "Base b WHERE TYPE(b) IN (" + strategy + "Sub1, " + strategy + "Sub2) AND b.value > 100");
+
+        Map<String, RuntimeException> errors = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : queries.entrySet()) {
+            final String query = entry.getValue();
+            try {
+                benchmark(entry.getKey(), new Benchmark.Operation() {
+                    @Override
+                    public void run() {
+                        EntityManager em = emf.createEntityManager();
+                        try {
+                            em.createQuery(query).getResultList();
+                        } finally {
+                            em.close();
+                        }
+                    }
+                });
+            } catch (RuntimeException ex) {
+                // The queries a provider doesn't support shouldn't prevent measuring the others, but still fail the test
+                errors.put(entry.getKey(), ex);
+            }
+        }
+
+        putDiscriminatorSize();
+        if (!errors.isEmpty()) {
+            AssertionError error = new AssertionError("Failed queries: " + errors.keySet());
+            error.initCause(errors.values().iterator().next());
+            throw error;
+        }
+    }
+
+    /**
+     * Puts the number of rows and the bytes the discriminator values take up in the base table, if it has a discriminator.
+     * The embedded databases can't tell the size of in-memory tables, so the size is derived from the column type and the values.
+     */
+    private void putDiscriminatorSize() throws SQLException {
+        String table = "Joined".equals(strategy) ? "JOINED_BASE" : "SingleTable".equals(strategy) ? "SINGLE_TABLE_BASE" : null;
+        if (table == null) {
+            return;
+        }
+
+        try (Connection connection = Database.getConnection()) {
+            String type;
+            try (ResultSet rs = connection.getMetaData().getColumns(null, null, table, "DTYPE")) {
+                if (!rs.next()) {
+                    // Hibernate doesn't use a discriminator for the joined strategy
+                    return;
+                }
+                type = rs.getString("TYPE_NAME");
+            }
+
+            // Character types take 2 bytes per character like in Java
+            String bytes = "INTEGER".equals(type) ? "4 * COUNT(*)" : "2 * SUM(LENGTH(DTYPE))";
+            try (Statement statement = connection.createStatement();
+                    ResultSet rs = statement.executeQuery("SELECT COUNT(*), " + bytes + " FROM " + table)) {
+                rs.next();
+                metrics.put("discriminatorType", type);
+                metrics.put("rowCount", rs.getLong(1));
+                metrics.put("estimatedDiscriminatorBytes", rs.getLong(2));
+            }
+        }
+    }
+}
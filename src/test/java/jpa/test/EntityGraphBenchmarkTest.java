@@ -0,0 +1,175 @@
+package jpa.test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.Subgraph;
+import jpa.test.entities.Base;
+import jpa.test.entities.Sub1;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Loads the roots of a hierarchy with an entity graph that only has a subgraph for an attribute of the first subtype.
+ * Every graph is measured without hint, as fetch graph and as load graph, including the lazy loading of the attribute afterwards.
+ * For providers without subclass subgraphs, the same graphs are also measured for a query of the subtype itself.
+ */
+public class EntityGraphBenchmarkTest extends AbstractBenchmarkTest {
+
+    // The tables of the test entities all start with the prefix of their strategy, aliases and columns don't
+
+    private Class<?> base;
+    private Class<?> sub1;
+
+    public EntityGraphBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Before
+    public void scaleData() throws Exception {
+        base = Class.forName("jpa.test.entities." + strategy + "Base");
+        sub1 = Class.forName("jpa.test.entities." + strategy + "Sub1");
+        // Enough rows so that over-fetching and lazy loading show in the latency
+        scaleFixture();
+    }
+
+    @Test
+    public void manyToOneParent1() throws Exception {
+        measureGraphs("parent1");
+    }
+
+    @Test
+    public void manyToManyList1() throws Exception {
+        measureGraphs("list1");
+    }
+
+    @Test
+    public void embeddableManyToManySub1List() throws Exception {
+        measureGraphs("embeddable1.sub1List");
+    }
+
+    private void measureGraphs(String path) throws Exception {
+        Map<String, RuntimeException> errors = new LinkedHashMap<>();
+        measureGraph(errors, "noGraph", base, null, path);
+        measureGraph(errors, "fetchGraph", base, "javax.persistence.fetchgraph", path);
+        measureGraph(errors, "loadGraph", base, "javax.persistence.loadgraph", path);
+        measureGraph(errors, "subtypeNoGraph", sub1, null, path);
+        measureGraph(errors, "subtypeFetchGraph", sub1, "javax.persistence.fetchgraph", path);
+        measureGraph(errors, "subtypeLoadGraph", sub1, "javax.persistence.loadgraph", path);
+
+        if (!errors.isEmpty()) {
+            AssertionError error = new AssertionError("Failed graphs: " + errors.keySet());
+            error.initCause(errors.values().iterator().next());
+            throw error;
+        }
+    }
+
+    /**
+     * Puts the statements and joins of the query, the statements of the lazy loading afterwards and the time for both.
+     * A graph the provider can't load is added to the given errors.
+     */
+    private void measureGraph(Map<String, RuntimeException> errors, String name, final Class<?> root, final String hint, final String path) throws Exception {
+        try {
+            EntityManager em = emf.createEntityManager();
+            try {
+                int start = JpaProvider.getStatements(emf).size();
+                List<Base<?, ?>> roots = load(em, root, hint, path);
+                List<String> queryStatements = JpaProvider.getStatements(emf).subList(start, JpaProvider.getStatements(emf).size());
+                access(roots, path);
+                int lazyStatements = JpaProvider.getStatements(emf).size() - start - queryStatements.size();
+
+                if (JpaProvider.RECORDS_STATEMENTS) {
+                    metrics.put(name + "Statements", queryStatements.size());
+                    metrics.put(name + "Joins", TestMetrics.countJoinedTables(queryStatements));
+                    metrics.put(name + "LazyStatements", lazyStatements);
+                }
+            } finally {
+                em.close();
+            }
+
+            benchmark(name, new Benchmark.Operation() {
+                @Override
+                public void run() {
+                    EntityManager em = emf.createEntityManager();
+                    try {
+                        access(load(em, root, hint, path), path);
+                    } finally {
+                        em.close();
+                    }
+                }
+            });
+        } catch (RuntimeException ex) {
+            // Providers that don't support subclass subgraphs shouldn't prevent measuring the other hints, but still fail the test
+            errors.put(name, ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Base<?, ?>> load(EntityManager em, Class<?> root, String hint, String path) {
+        Query query = em.createQuery("SELECT b FROM " + root.getSimpleName() + " b");
+        if (hint != null) {
+            query.setHint(hint, root == base ? createSubclassGraph(em, path) : createGraph(em, path));
+        }
+        return (List<Base<?, ?>>) query.getResultList();
+    }
+
+    /**
+     * Creates a graph for the base type with a subclass subgraph for the given dot separated path of the first subtype.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private EntityGraph<?> createSubclassGraph(EntityManager em, String path) {
+        EntityGraph graph = em.createEntityGraph(base);
+        Subgraph subgraph = graph.addSubclassSubgraph(sub1);
+        String[] attributes = path.split("\\.");
+        for (int i = 0; i < attributes.length - 1; i++) {
+            subgraph = subgraph.addSubgraph(attributes[i]);
+        }
+        subgraph.addAttributeNodes(attributes[attributes.length - 1]);
+        return graph;
+    }
+
+    /**
+     * Creates a graph for the first subtype with the given dot separated path.
+     */
+    private EntityGraph<?> createGraph(EntityManager em, String path) {
+        EntityGraph<?> graph = em.createEntityGraph(sub1);
+        String[] attributes = path.split("\\.");
+        if (attributes.length == 1) {
+            graph.addAttributeNodes(attributes[0]);
+        } else {
+            Subgraph<?> subgraph = graph.addSubgraph(attributes[0]);
+            for (int i = 1; i < attributes.length - 1; i++) {
+                subgraph = subgraph.addSubgraph(attributes[i]);
+            }
+            subgraph.addAttributeNodes(attributes[attributes.length - 1]);
+        }
+        return graph;
+    }
+
+    private static void access(List<Base<?, ?>> roots, String path) {
+        for (Base<?, ?> root : roots) {
+            if (!(root instanceof Sub1<?, ?, ?>)) {
+                continue;
+            }
+
+            Sub1<?, ?, ?> sub1 = (Sub1<?, ?, ?>) root;
+            switch (path) {
+                case "parent1":
+                    // Initializes the parent if it is a proxy
+                    if (sub1.getParent1() != null) {
+                        sub1.getParent1().getName();
+                    }
+                    break;
+                case "list1":
+                    sub1.getList1().size();
+                    break;
+                default:
+                    sub1.getEmbeddable1().getSub1List().size();
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package jpa.test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import jpa.test.entities.Base;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Fetch joins of treated associations. A treat in a fetch join may only restrict the joined rows, never the fetched association,
+ * since the association of a managed entity always holds all elements, regardless of the subtype.
+ * JPQL can't fetch a map key, a fetch join of a map always fetches its values, so there is no fetch join of a treated key.
+ * Every test first verifies the result on the fixture and then measures the query on scaled data.
+ */
+public class FetchJoinTest extends AbstractBenchmarkTest {
+
+    public FetchJoinTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Test
+    public void fetchJoinManyToOne() throws Exception {
+        // The parent of s2 is a Sub2 and must still be fetched
+        assertFetchJoin(
+            "SELECT b FROM " + strategy + "Base b LEFT JOIN FETCH TREAT(b.parent AS " + strategy + "Sub1)",
+            "parent",
+            objectPrefix + "1.parent", objectPrefix + "2.parent", "", ""
+        );
+    }
+
+    @Test
+    public void fetchJoinOneToManyList() throws Exception {
+        // The list of s1.parent only contains s2 and must not be empty
+        assertFetchJoin(
+            "SELECT b FROM " + strategy + "Base b LEFT JOIN FETCH TREAT(b.list AS " + strategy + "Sub1)",
+            "list",
+            objectPrefix + "1.parent", objectPrefix + "2.parent", objectPrefix + "2", objectPrefix + "1"
+        );
+    }
+
+    @Test
+    public void fetchJoinOneToManyInverseSet() throws Exception {
+        assertFetchJoin(
+            "SELECT b FROM " + strategy + "Base b LEFT JOIN FETCH TREAT(b.children AS " + strategy + "Sub1)",
+            "children",
+            "", "", objectPrefix + "1", objectPrefix + "2"
+        );
+    }
+
+    @Test
+    public void fetchJoinManyToManyMapValue() throws Exception {
+        assertFetchJoin(
+            "SELECT b FROM " + strategy + "Base b LEFT JOIN FETCH TREAT(b.map AS " + strategy + "Sub1)",
+            "map",
+            objectPrefix + "1.parent", objectPrefix + "2.parent", objectPrefix + "2", objectPrefix + "1"
+        );
+    }
+
+    /**
+     * Asserts that the query returns every root with the given association loaded and complete,
+     * then measures the statements, row duplication and hydration of the query on scaled data.
+     * The expected related objects are given for the roots sub1, sub2, sub1.parent and sub2.parent.
+     */
+    private void assertFetchJoin(final String query, final String attribute, String... expected) throws Exception {
+        Map<String, String> expectedRelated = new LinkedHashMap<>();
+        expectedRelated.put(objectPrefix + "1", expected[0]);
+        expectedRelated.put(objectPrefix + "2", expected[1]);
+        expectedRelated.put(objectPrefix + "1.parent", expected[2]);
+        expectedRelated.put(objectPrefix + "2.parent", expected[3]);
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            long statements = getStatementCount();
+            List<Base<?, ?>> roots = getResultList(em, query);
+            if (JpaProvider.RECORDS_STATEMENTS) {
+                metrics.put("fixtureStatements", getStatementCount() - statements);
+            }
+            Set<Base<?, ?>> distinctRoots = putRowMetrics("fixture", roots);
+
+            // Checked before accessing the association, which would load it lazily
+            PersistenceUnitUtil util = emf.getPersistenceUnitUtil();
+            Map<String, String> related = new LinkedHashMap<>();
+            for (Base<?, ?> root : distinctRoots) {
+                Assert.assertTrue(root.getName() + "." + attribute + " wasn't fetched", util.isLoaded(root, attribute));
+                related.put(root.getName(), names(getRelated(root, attribute)));
+            }
+            Assert.assertEquals(expectedRelated, related);
+        } finally {
+            em.close();
+        }
+
+        scaleFixture();
+        em = emf.createEntityManager();
+        try {
+            long statements = getStatementCount();
+            putRowMetrics("scaled", getResultList(em, query));
+            if (JpaProvider.RECORDS_STATEMENTS) {
+                metrics.put("scaledStatements", getStatementCount() - statements);
+            }
+        } finally {
+            em.close();
+        }
+
+        // Hydration includes building and accessing the fetched associations
+        benchmark("hydration", new Benchmark.Operation() {
+            @Override
+            public void run() {
+                EntityManager em = emf.createEntityManager();
+                try {
+                    for (Base<?, ?> root : getResultList(em, query)) {
+                        getRelated(root, attribute).size();
+                    }
+                } finally {
+                    em.close();
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Base<?, ?>> getResultList(EntityManager em, String query) {
+        return (List<Base<?, ?>>) em.createQuery(query).getResultList();
+    }
+
+    /**
+     * Puts the number of rows, the number of distinct roots and their ratio, which is the duplication caused by the fetched collection.
+     */
+    private Set<Base<?, ?>> putRowMetrics(String prefix, List<Base<?, ?>> roots) {
+        Set<Base<?, ?>> distinctRoots = Collections.newSetFromMap(new IdentityHashMap<Base<?, ?>, Boolean>());
+        distinctRoots.addAll(roots);
+        metrics.put(prefix + "Rows", roots.size());
+        metrics.put(prefix + "DistinctRows", distinctRoots.size());
+        if (!distinctRoots.isEmpty()) {
+            metrics.put(prefix + "RowDuplication", Math.round(roots.size() * 100.0 / distinctRoots.size()) / 100.0);
+        }
+        return distinctRoots;
+    }
+
+    private long getStatementCount() {
+        return JpaProvider.getStatements(emf).size();
+    }
+
+    /**
+     * Returns the objects of the association, for maps the entries so that both keys and values are compared.
+     */
+    private static Collection<?> getRelated(Base<?, ?> base, String attribute) {
+        switch (attribute) {
+            case "parent":
+                return base.getParent() == null ? Collections.emptyList() : Collections.singletonList(base.getParent());
+            case "list":
+                return base.getList();
+            case "children":
+                return base.getChildren();
+            default:
+                return base.getMap().entrySet();
+        }
+    }
+
+    private static String names(Collection<?> objects) {
+        List<String> names = new ArrayList<>();
+        for (Object object : objects) {
+            if (object instanceof Map.Entry<?, ?>) {
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) object;
+                String key = ((Base<?, ?>) entry.getKey()).getName();
+                String value = ((Base<?, ?>) entry.getValue()).getName();
+                // In the fixture every key maps to itself
+                names.add(key.equals(value) ? key : key + "=" + value);
+            } else {
+                names.add(((Base<?, ?>) object).getName());
+            }
+        }
+        Collections.sort(names);
+        StringBuilder sb = new StringBuilder();
+        for (String name : names) {
+            sb.append(sb.length() == 0 ? "" : ", ").append(name);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package jpa.test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import jpa.test.entities.IntIdEntity;
+import jpa.test.entities.Sub1;
+import jpa.test.entities.Sub2;
+import org.junit.Test;
+
+public class FixtureLoadBenchmarkTest extends AbstractBenchmarkTest {
+
+    // Every graph consists of 4 entities with 16 list elements and 16 map entries, like a copy of scaleFixture
+    private static final int GRAPHS_PER_TRANSACTION = 25;
+    private static final int ENTITIES_PER_GRAPH = 4;
+
+    public FixtureLoadBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Override
+    protected boolean isBatchWritingEnabled() {
+        // The unbatched tests are the baseline, so the system property must not enable it for them
+        return testName.getMethodName().startsWith("batched");
+    }
+
+    @Override
+    protected String getPersistenceUnitName() {
+        return testName.getMethodName().contains("PooledId") ? "PooledIdPU" : super.getPersistenceUnitName();
+    }
+
+    @Test
+    public void batchedFixtureLoad() throws Exception {
+        measureLoad();
+    }
+
+    @Test
+    public void unbatchedFixtureLoad() throws Exception {
+        measureLoad();
+    }
+
+    @Test
+    public void batchedPooledIdFixtureLoad() throws Exception {
+        measureLoad();
+    }
+
+    @Test
+    public void unbatchedPooledIdFixtureLoad() throws Exception {
+        measureLoad();
+    }
+
+    private void measureLoad() throws Exception {
+        final Class<?> sub1Class = Class.forName("jpa.test.entities." + strategy + "Sub1");
+        final Class<?> sub2Class = Class.forName("jpa.test.entities." + strategy + "Sub2");
+
+        benchmark("load", new Benchmark.Operation() {
+            @Override
+            public void run() throws Exception {
+                EntityManager em = emf.createEntityManager();
+                EntityTransaction tx = em.getTransaction();
+                tx.begin();
+
+                IntIdEntity i1 = new IntIdEntity("load");
+                em.persist(i1);
+                for (int i = 0; i < GRAPHS_PER_TRANSACTION; i++) {
+                    persist(
+                        em,
+                        i1,
+                        (Sub1) sub1Class.getConstructor(String.class).newInstance("load1"),
+                        (Sub2) sub2Class.getConstructor(String.class).newInstance("load2"),
+                        (Sub1) sub1Class.getConstructor(String.class).newInstance("load1.parent"),
+                        (Sub2) sub2Class.getConstructor(String.class).newInstance("load2.parent")
+                    );
+                }
+
+                tx.commit();
+                em.close();
+            }
+        });
+
+        long avgMicros = ((Number) metrics.get("loadAvgMicros")).longValue();
+        long entities = GRAPHS_PER_TRANSACTION * ENTITIES_PER_GRAPH + 1;
+        metrics.put("loadEntitiesPerSecond", avgMicros == 0 ? 0 : entities * 1_000_000 / avgMicros);
+    }
+}
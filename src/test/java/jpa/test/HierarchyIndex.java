@@ -0,0 +1,263 @@
+package jpa.test;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Inheritance;
+import javax.persistence.InheritanceType;
+import javax.persistence.Table;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.IdentifiableType;
+import javax.persistence.metamodel.Metamodel;
+
+/**
+ * An immutable index of the entity type hierarchies of a metamodel, built once per entity manager factory.
+ * Every entity type gets a number, so subtype sets are bitsets and the type questions of a treat translation
+ * like assignability or which subtypes declare an attribute are answered without walking the metamodel.
+ * The tables are taken from the annotations, mapping files that rename tables aren't considered.
+ */
+public final class HierarchyIndex {
+
+    private static final Map<EntityManagerFactory, HierarchyIndex> INDEXES = Collections.synchronizedMap(new WeakHashMap<EntityManagerFactory, HierarchyIndex>());
+
+    private final Class<?>[] types;
+    private final String[] entityNames;
+    private final Map<Class<?>, Integer> typeNumbers = new HashMap<>();
+    private final int[] roots;
+    private final BitSet[] subtypes;
+    private final BitSet concreteTypes = new BitSet();
+    private final List<List<String>> tables = new ArrayList<>();
+    // Per type the attribute name to the number of the declaring type, including the inherited attributes
+    private final List<Map<String, Integer>> attributeOwners = new ArrayList<>();
+    // Attribute name to the types declaring an attribute of that name
+    private final Map<String, BitSet> declaringTypes = new HashMap<>();
+
+    public HierarchyIndex(Metamodel metamodel) {
+        List<EntityType<?>> entityTypes = new ArrayList<>(metamodel.getEntities());
+        // Sorted so that the numbers don't depend on the provider
+        Collections.sort(entityTypes, new Comparator<EntityType<?>>() {
+            @Override
+            public int compare(EntityType<?> o1, EntityType<?> o2) {
+                return o1.getJavaType().getName().compareTo(o2.getJavaType().getName());
+            }
+        });
+
+        int size = entityTypes.size();
+        types = new Class<?>[size];
+        entityNames = new String[size];
+        roots = new int[size];
+        subtypes = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            types[i] = entityTypes.get(i).getJavaType();
+            entityNames[i] = entityTypes.get(i).getName();
+            typeNumbers.put(types[i], i);
+            subtypes[i] = new BitSet(size);
+        }
+
+        for (int i = 0; i < size; i++) {
+            EntityType<?> entityType = entityTypes.get(i);
+            if (!Modifier.isAbstract(types[i].getModifiers())) {
+                concreteTypes.set(i);
+            }
+
+            // Every type is a subtype of itself and of all its entity supertypes
+            roots[i] = i;
+            for (IdentifiableType<?> type = entityType; type != null; type = type.getSupertype()) {
+                Integer number = typeNumbers.get(type.getJavaType());
+                if (number != null) {
+                    subtypes[number].set(i);
+                    roots[i] = number;
+                }
+            }
+
+            for (Attribute<?, ?> attribute : entityType.getDeclaredAttributes()) {
+                BitSet declaring = declaringTypes.get(attribute.getName());
+                if (declaring == null) {
+                    declaring = new BitSet(size);
+                    declaringTypes.put(attribute.getName(), declaring);
+                }
+                declaring.set(i);
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            Map<String, Integer> owners = new HashMap<>();
+            for (Attribute<?, ?> attribute : entityTypes.get(i).getAttributes()) {
+                owners.put(attribute.getName(), findOwner(i, attribute.getName()));
+            }
+            attributeOwners.add(owners);
+            tables.add(Collections.unmodifiableList(collectTables(i)));
+        }
+
+        // Only the owners remain declaring types
+        for (BitSet declaring : declaringTypes.values()) {
+            for (int i = declaring.nextSetBit(0); i != -1; i = declaring.nextSetBit(i + 1)) {
+                if (isDeclaredBySupertype(i, declaring)) {
+                    declaring.clear(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the metamodel of the given factory, which is only built on the first call.
+     */
+    public static HierarchyIndex of(EntityManagerFactory emf) {
+        HierarchyIndex index = INDEXES.get(emf);
+        if (index == null) {
+            index = new HierarchyIndex(emf.getMetamodel());
+            INDEXES.put(emf, index);
+        }
+        return index;
+    }
+
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * Returns the number of the given entity type, which is its bit in the subtype sets.
+     */
+    public int getNumber(Class<?> type) {
+        Integer number = typeNumbers.get(type);
+        if (number == null) {
+            throw new IllegalArgumentException("Not an entity type: " + type.getName());
+        }
+        return number;
+    }
+
+    public Class<?> getType(int number) {
+        return types[number];
+    }
+
+    public List<Class<?>> getTypes(BitSet numbers) {
+        List<Class<?>> result = new ArrayList<>(numbers.cardinality());
+        for (int i = numbers.nextSetBit(0); i != -1; i = numbers.nextSetBit(i + 1)) {
+            result.add(types[i]);
+        }
+        return result;
+    }
+
+    public Class<?> getRoot(Class<?> type) {
+        return types[roots[getNumber(type)]];
+    }
+
+    public InheritanceType getStrategy(Class<?> type) {
+        Inheritance inheritance = types[roots[getNumber(type)]].getAnnotation(Inheritance.class);
+        return inheritance == null ? InheritanceType.SINGLE_TABLE : inheritance.strategy();
+    }
+
+    public boolean isAssignable(Class<?> subtype, Class<?> type) {
+        return subtypes[getNumber(type)].get(getNumber(subtype));
+    }
+
+    /**
+     * Returns the given type and all its subtypes, the returned set is a copy.
+     */
+    public BitSet getSubtypes(Class<?> type) {
+        return (BitSet) subtypes[getNumber(type)].clone();
+    }
+
+    /**
+     * Returns the non-abstract types among the given type and its subtypes, the returned set is a copy.
+     */
+    public BitSet getConcreteSubtypes(Class<?> type) {
+        BitSet result = getSubtypes(type);
+        result.and(concreteTypes);
+        return result;
+    }
+
+    /**
+     * Returns the type of the hierarchy of the given type that declares the attribute or null if the type has no such attribute.
+     */
+    public Class<?> getDeclaringType(Class<?> type, String attribute) {
+        Integer owner = attributeOwners.get(getNumber(type)).get(attribute);
+        return owner == null ? null : types[owner];
+    }
+
+    /**
+     * Returns the subtypes of the given type that declare the attribute themselves, the returned set is a copy.
+     */
+    public BitSet getDeclaringSubtypes(Class<?> type, String attribute) {
+        BitSet result = getSubtypes(type);
+        BitSet declaring = declaringTypes.get(attribute);
+        if (declaring == null) {
+            result.clear();
+        } else {
+            result.and(declaring);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tables a polymorphic query for the given type has to access.
+     */
+    public List<String> getTables(Class<?> type) {
+        return tables.get(getNumber(type));
+    }
+
+    /**
+     * Returns the topmost type of the hierarchy of the given type that declares the attribute.
+     * EclipseLink also reports inherited attributes as declared by the subtype, so the declaring type of the metamodel isn't used.
+     */
+    private int findOwner(int number, String attribute) {
+        BitSet declaring = declaringTypes.get(attribute);
+        int owner = number;
+        if (declaring != null) {
+            for (int i = declaring.nextSetBit(0); i != -1; i = declaring.nextSetBit(i + 1)) {
+                // Every supertype has more subtypes than its subtypes
+                if (subtypes[i].get(number) && subtypes[i].cardinality() > subtypes[owner].cardinality()) {
+                    owner = i;
+                }
+            }
+        }
+        return owner;
+    }
+
+    private boolean isDeclaredBySupertype(int number, BitSet declaring) {
+        for (int i = declaring.nextSetBit(0); i != -1; i = declaring.nextSetBit(i + 1)) {
+            if (i != number && subtypes[i].get(number)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<String> collectTables(int number) {
+        List<String> result = new ArrayList<>();
+        switch (getStrategy(types[number])) {
+            case SINGLE_TABLE:
+                result.add(getTable(roots[number]));
+                break;
+            case JOINED:
+                // The supertype tables hold the inherited columns, the subtype tables the rows of the subtypes
+                for (int i = 0; i < types.length; i++) {
+                    if (subtypes[i].get(number) || subtypes[number].get(i)) {
+                        result.add(getTable(i));
+                    }
+                }
+                break;
+            default:
+                for (int i = subtypes[number].nextSetBit(0); i != -1; i = subtypes[number].nextSetBit(i + 1)) {
+                    if (concreteTypes.get(i)) {
+                        result.add(getTable(i));
+                    }
+                }
+                break;
+        }
+        return result;
+    }
+
+    private String getTable(int number) {
+        Table table = types[number].getAnnotation(Table.class);
+        return table == null || table.name().isEmpty() ? entityNames[number] : table.name();
+    }
+}
@@ -0,0 +1,106 @@
+package jpa.test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.InheritanceType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HierarchyIndexTest extends AbstractBenchmarkTest {
+
+    // Type questions per benchmark iteration, so that the latency per lookup is measurable
+    private static final int LOOKUPS = 10_000;
+
+    private Class<?> base;
+    private Class<?> sub1;
+    private Class<?> sub2;
+
+    public HierarchyIndexTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Before
+    public void loadTypes() throws Exception {
+        base = Class.forName("jpa.test.entities." + strategy + "Base");
+        sub1 = Class.forName("jpa.test.entities." + strategy + "Sub1");
+        sub2 = Class.forName("jpa.test.entities." + strategy + "Sub2");
+    }
+
+    @Test
+    public void subtypes() {
+        HierarchyIndex index = HierarchyIndex.of(emf);
+
+        Assert.assertSame(index, HierarchyIndex.of(emf));
+        Assert.assertEquals(Arrays.asList(base, sub1, sub2), index.getTypes(index.getSubtypes(base)));
+        Assert.assertEquals(Arrays.asList(sub1, sub2), index.getTypes(index.getConcreteSubtypes(base)));
+        Assert.assertEquals(Collections.<Class<?>>singletonList(sub1), index.getTypes(index.getSubtypes(sub1)));
+        Assert.assertEquals(base, index.getRoot(sub2));
+        Assert.assertTrue(index.isAssignable(sub1, base));
+        Assert.assertFalse(index.isAssignable(base, sub1));
+        Assert.assertFalse(index.isAssignable(sub1, sub2));
+    }
+
+    @Test
+    public void tables() {
+        HierarchyIndex index = HierarchyIndex.of(emf);
+        List<String> baseTables;
+        List<String> sub1Tables;
+
+        switch (strategy) {
+            case "Joined":
+                Assert.assertEquals(InheritanceType.JOINED, index.getStrategy(sub1));
+                baseTables = Arrays.asList("joined_base", "joined_sub_1", "joined_sub_2");
+                sub1Tables = Arrays.asList("joined_base", "joined_sub_1");
+                break;
+            case "SingleTable":
+                Assert.assertEquals(InheritanceType.SINGLE_TABLE, index.getStrategy(sub1));
+                baseTables = Arrays.asList("single_table_base");
+                sub1Tables = Arrays.asList("single_table_base");
+                break;
+            default:
+                Assert.assertEquals(InheritanceType.TABLE_PER_CLASS, index.getStrategy(sub1));
+                baseTables = Arrays.asList("table_per_class_sub_1", "table_per_class_sub_2");
+                sub1Tables = Arrays.asList("table_per_class_sub_1");
+                break;
+        }
+
+        Assert.assertEquals(baseTables, index.getTables(base));
+        Assert.assertEquals(sub1Tables, index.getTables(sub1));
+    }
+
+    @Test
+    public void attributeOwners() {
+        HierarchyIndex index = HierarchyIndex.of(emf);
+
+        Assert.assertEquals(base, index.getDeclaringType(sub1, "value"));
+        Assert.assertEquals(sub1, index.getDeclaringType(sub1, "sub1Value"));
+        Assert.assertNull(index.getDeclaringType(base, "sub1Value"));
+        Assert.assertNull(index.getDeclaringType(sub2, "sub1Value"));
+        Assert.assertEquals(Collections.<Class<?>>singletonList(sub1), index.getTypes(index.getDeclaringSubtypes(base, "sub1Value")));
+        Assert.assertEquals(Collections.<Class<?>>singletonList(base), index.getTypes(index.getDeclaringSubtypes(base, "value")));
+        Assert.assertTrue(index.getDeclaringSubtypes(base, "unknown").isEmpty());
+    }
+
+    @Test
+    public void lookupLatency() throws Exception {
+        final HierarchyIndex index = HierarchyIndex.of(emf);
+
+        benchmark("lookup", new Benchmark.Operation() {
+            @Override
+            public void run() {
+                int found = 0;
+                for (int i = 0; i < LOOKUPS; i++) {
+                    if (index.isAssignable(sub1, base) && index.getDeclaringType(sub1, "sub1Value") == sub1) {
+                        found++;
+                    }
+                }
+                Assert.assertEquals(LOOKUPS, found);
+            }
+        });
+
+        long avgMicros = ((Number) metrics.get("lookupAvgMicros")).longValue();
+        metrics.put("lookupNanos", avgMicros * 1000 / LOOKUPS);
+    }
+}
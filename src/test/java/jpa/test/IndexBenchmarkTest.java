@@ -0,0 +1,78 @@
+package jpa.test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexBenchmarkTest extends AbstractBenchmarkTest {
+
+    public IndexBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Override
+    protected String getPersistenceUnitName() {
+        // The unindexed variant is the control, so it must not pick up the indexes of -DindexedSchema
+        return testName.getMethodName().startsWith("indexed") ? "IndexedPU" : "TestPU";
+    }
+
+    @Before
+    public void scaleData() throws Exception {
+        // Enough rows so that a table scan costs more than an index lookup
+        scaleFixture();
+    }
+
+    @Test
+    public void indexedTreatJoin() throws Exception {
+        measureQueries();
+    }
+
+    @Test
+    public void unindexedTreatJoin() throws Exception {
+        measureQueries();
+    }
+
+    private void measureQueries() throws Exception {
+        Map<String, String> queries = new LinkedHashMap<>();
+        // The filter on the treated type lets the database start the join from the subtype
+        queries.put("parent", "SELECT b.name FROM " + strategy + "Base b JOIN TREAT(b.parent AS " + strategy + "Sub1) s1 WHERE s1.sub1Value = 101");
+        queries.put("children", "SELECT s1.sub1Value FROM " + strategy + "Base b LEFT JOIN TREAT(b.children AS " + strategy + "Sub1) s1");
+        queries.put("list", "SELECT b.name FROM " + strategy + "Base b JOIN TREAT(b.list AS " + strategy + "Sub1) s1 WHERE s1.sub1Value = 101");
+        queries.put("type", "SELECT b.name FROM " + strategy + "Base b WHERE TYPE(b) = " + strategy + "Sub1");
+
+        for (Map.Entry<String, String> entry : queries.entrySet()) {
+            final String query = entry.getValue();
+            benchmark(entry.getKey(), new Benchmark.Operation() {
+                @Override
+                public void run() {
+                    EntityManager em = emf.createEntityManager();
+                    em.createQuery(query).getResultList();
+                    em.close();
+                }
+            });
+            Integer tableScans = countTableScans(query);
+            if (tableScans != null) {
+                metrics.put(entry.getKey() + "TableScans", tableScans);
+            }
+        }
+    }
+
+    /**
+     * Returns how often the query plan of the SQL for the given JPQL query scans a whole table or null if the database can't tell.
+     */
+    private Integer countTableScans(String jpql) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            String explain = Database.explain(JpaProvider.getSql(em, em.createQuery(jpql)));
+            if (explain == null) {
+                return null;
+            }
+
+            return Database.countTableScans(em.createNativeQuery(explain).getResultList());
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package jpa.test;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import jpa.test.entities.Base;
+
+/**
+ * Keyset pagination over the roots of a hierarchy ordered by a sort attribute and the id as tie breaker.
+ * Instead of skipping the rows of the previous pages with an offset, which the database still has to read,
+ * the next page starts after the key of the last result of the previous page by a seek predicate like
+ * <code>b.value &gt; :keysetValue OR (b.value = :keysetValue AND b.id &gt; :keysetId)</code>.
+ * The sort attribute must not be null, since null doesn't compare.
+ */
+public final class Keyset {
+
+    private static final Pattern WHERE = Pattern.compile("\\bWHERE\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern UNSUPPORTED = Pattern.compile("\\b(?:ORDER\\s+BY|GROUP\\s+BY)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final String alias;
+    private final String attribute;
+
+    /**
+     * Creates a keyset on the given attribute of the root with the given alias, which is either <code>value</code> or <code>name</code>.
+     */
+    public Keyset(String alias, String attribute) {
+        if (!"value".equals(attribute) && !"name".equals(attribute)) {
+            throw new IllegalArgumentException("Unsupported sort attribute: " + attribute);
+        }
+        this.alias = alias;
+        this.attribute = attribute;
+    }
+
+    /**
+     * Returns the key of the given root, which is the key after which the next page starts.
+     */
+    public Object[] getKey(Base<?, ?> root) {
+        Object value = "value".equals(attribute) ? root.getValue() : root.getName();
+        return new Object[] { value, root.getId() };
+    }
+
+    /**
+     * Returns the given JPQL query with the seek predicate and the order by, the key is only needed for pages after the first.
+     * The query must not have an ORDER BY or GROUP BY clause and its WHERE clause, if any, must be the one of the top level query.
+     */
+    public String apply(String query, boolean afterKey) {
+        if (UNSUPPORTED.matcher(query).find()) {
+            throw new IllegalArgumentException("Queries with ORDER BY or GROUP BY aren't supported: " + query);
+        }
+
+        String path = alias + "." + attribute;
+        String id = alias + ".id";
+        StringBuilder sb = new StringBuilder(query.length() + 128);
+        if (afterKey) {
+            String seek = "(" + path + " > :keysetValue OR (" + path + " = :keysetValue AND " + id + " > :keysetId))";
+            Matcher matcher = WHERE.matcher(query);
+            if (matcher.find()) {
+                sb.append(query, 0, matcher.end()).append(' ').append(seek).append(" AND (").append(query.substring(matcher.end()).trim()).append(')');
+            } else {
+                sb.append(query).append(" WHERE ").append(seek);
+            }
+        } else {
+            sb.append(query);
+        }
+        return sb.append(" ORDER BY ").append(path).append(", ").append(id).toString();
+    }
+
+    /**
+     * Creates the query for the page after the given key, which is null for the first page.
+     */
+    public <T> TypedQuery<T> createQuery(EntityManager em, String query, Class<T> resultClass, Object[] key, int pageSize) {
+        TypedQuery<T> q = em.createQuery(apply(query, key != null), resultClass);
+        if (key != null) {
+            q.setParameter("keysetValue", key[0]);
+            q.setParameter("keysetId", key[1]);
+        }
+        return q.setMaxResults(pageSize);
+    }
+
+    /**
+     * Creates the query for the page after the given key, which is null for the first page.
+     * The seek predicate is added to the restriction of the criteria query and the order by is replaced, so the criteria query is modified.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public <T> TypedQuery<T> createQuery(EntityManager em, CriteriaQuery<T> criteria, Path<?> root, Object[] key, int pageSize) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        Expression<Comparable> path = root.get(attribute);
+        Expression<Comparable> id = root.get("id");
+        if (key != null) {
+            Comparable value = (Comparable) key[0];
+            Comparable idValue = (Comparable) key[1];
+            Predicate seek = cb.or(cb.greaterThan(path, value), cb.and(cb.equal(path, value), cb.greaterThan(id, idValue)));
+            Predicate restriction = criteria.getRestriction();
+            criteria.where(restriction == null ? seek : cb.and(seek, restriction));
+        }
+        criteria.orderBy(cb.asc(path), cb.asc(id));
+        return em.createQuery(criteria).setMaxResults(pageSize);
+    }
+}
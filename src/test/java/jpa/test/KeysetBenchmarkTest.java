@@ -0,0 +1,149 @@
+package jpa.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Root;
+import jpa.test.entities.Base;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Pages over the roots of a hierarchy with {@link Keyset} and with an offset. Every test first asserts that walking all pages
+ * returns the same roots in the same order on the fixture. On scaled data it measures the first page, which is the same for both,
+ * and the deepest page by offset and by key.
+ */
+public class KeysetBenchmarkTest extends AbstractBenchmarkTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private String jpql;
+    private Keyset keyset;
+
+    public KeysetBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Override
+    protected String getPersistenceUnitName() {
+        // Seeking needs the value and name indexes, which IndexBenchmarkTest must not see
+        return "KeysetPU";
+    }
+
+    @Test
+    public void keysetJpqlRootsByValue() throws Exception {
+        jpql = "SELECT b FROM " + strategy + "Base b";
+        keyset = new Keyset("b", "value");
+        assertKeysetPagination();
+    }
+
+    @Test
+    public void keysetJpqlTreatJoinManyToOneByName() throws Exception {
+        jpql = "SELECT b FROM " + strategy + "Base b LEFT JOIN TREAT(b.parent AS " + strategy + "Sub1) s1 WHERE s1.sub1Value IS NULL OR s1.sub1Value > 100";
+        keyset = new Keyset("b", "name");
+        assertKeysetPagination();
+    }
+
+    @Test
+    public void keysetCriteriaTreatJoinManyToOneByValue() throws Exception {
+        // The same restriction as the JPQL query, built with CriteriaBuilder.treat
+        keyset = new Keyset("b", "value");
+        assertKeysetPagination();
+    }
+
+    private void assertKeysetPagination() throws Exception {
+        List<String> offsetNames = new ArrayList<>();
+        List<Base<?, ?>> page;
+        int firstResult = 0;
+        do {
+            page = getPage(null, firstResult);
+            offsetNames.addAll(names(page));
+            firstResult += PAGE_SIZE;
+        } while (page.size() == PAGE_SIZE);
+
+        List<String> keysetNames = new ArrayList<>();
+        Object[] key = null;
+        do {
+            page = getPage(key, 0);
+            keysetNames.addAll(names(page));
+            key = page.isEmpty() ? null : keyset.getKey(page.get(page.size() - 1));
+        } while (page.size() == PAGE_SIZE);
+        Assert.assertEquals(offsetNames, keysetNames);
+
+        // Deeper than the other benchmarks, the offset costs grow with the depth
+        scaleFixture(Benchmark.getScale() * 4);
+        final int deepOffset = Math.max(0, getPage(null, 0, Integer.MAX_VALUE).size() - PAGE_SIZE);
+        final Object[] deepKey = deepOffset == 0 ? null : keyset.getKey(getPage(null, deepOffset - 1, 1).get(0));
+        Assert.assertEquals(names(getPage(null, deepOffset)), names(getPage(deepKey, 0)));
+        metrics.put("deepOffset", deepOffset);
+
+        benchmark("offsetFirstPage", new Benchmark.Operation() {
+            @Override
+            public void run() {
+                getPage(null, 0);
+            }
+        });
+        benchmark("offsetDeepPage", new Benchmark.Operation() {
+            @Override
+            public void run() {
+                getPage(null, deepOffset);
+            }
+        });
+        benchmark("keysetDeepPage", new Benchmark.Operation() {
+            @Override
+            public void run() {
+                getPage(deepKey, 0);
+            }
+        });
+    }
+
+    private List<Base<?, ?>> getPage(Object[] key, int firstResult) {
+        return getPage(key, firstResult, PAGE_SIZE);
+    }
+
+    /**
+     * Returns the page after the given key or, without key, the page at the given offset, both in keyset order.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Base<?, ?>> getPage(Object[] key, int firstResult, int pageSize) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            TypedQuery<Object> query;
+            if (jpql != null) {
+                query = keyset.createQuery(em, jpql, Object.class, key, pageSize);
+            } else {
+                CriteriaQuery<Object> criteria = em.getCriteriaBuilder().createQuery(Object.class);
+                Root<?> root = createCriteriaRoot(em, criteria);
+                query = keyset.createQuery(em, criteria, root, key, pageSize);
+            }
+            return (List<Base<?, ?>>) (List<?>) query.setFirstResult(firstResult).getResultList();
+        } catch (ClassNotFoundException ex) {
+            throw new IllegalStateException(ex);
+        } finally {
+            em.close();
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Root<?> createCriteriaRoot(EntityManager em, CriteriaQuery<Object> criteria) throws ClassNotFoundException {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        Root<?> root = criteria.from(Class.forName("jpa.test.entities." + strategy + "Base"));
+        Join parent = root.join("parent", JoinType.LEFT);
+        Join s1 = cb.treat(parent, (Class) Class.forName("jpa.test.entities." + strategy + "Sub1"));
+        criteria.select(root).where(cb.or(cb.isNull(s1.get("sub1Value")), cb.gt(s1.<Integer>get("sub1Value"), 100)));
+        return root;
+    }
+
+    private static List<String> names(List<Base<?, ?>> roots) {
+        List<String> names = new ArrayList<>(roots.size());
+        for (Base<?, ?> root : roots) {
+            names.add(root.getName() + "#" + root.getId());
+        }
+        return names;
+    }
+}
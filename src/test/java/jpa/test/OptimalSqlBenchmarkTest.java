@@ -0,0 +1,190 @@
+package jpa.test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OptimalSqlBenchmarkTest extends AbstractBenchmarkTest {
+
+    public OptimalSqlBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Override
+    protected String getPersistenceUnitName() {
+        // The optimal SQL is written against the tables and STRING discriminator values of TestPU
+        return "TestPU";
+    }
+
+    @Before
+    public void scaleData() throws Exception {
+        // Enough rows so that unnecessary joins and unions show in the latency
+        scaleFixture();
+    }
+
+    @Test
+    public void rootTreat() throws Exception {
+        measureQueries(rootTreatQueries());
+    }
+
+    @Test
+    public void treatJoin() throws Exception {
+        measureQueries(treatJoinQueries());
+    }
+
+    /**
+     * The basic cases of RootTreatTest along with the SQL that only accesses the tables of the treated subtypes.
+     */
+    private Map<String, String[]> rootTreatQueries() {
+        Map<String, String[]> queries = new LinkedHashMap<>();
+        queries.put("selectTreatedRootBasic", new String[] {
+            "SELECT TREAT(b AS " + strategy + "Sub1).sub1Value FROM " + strategy + "Base b",
+            sql(
+                "SELECT s1.sub1Value FROM joined_base b LEFT JOIN joined_sub_1 s1 ON s1.id = b.id",
+                "SELECT CASE WHEN b.DTYPE = 'SingleTableSub1' THEN b.sub1Value END FROM single_table_base b",
+                "SELECT s1.sub1Value FROM table_per_class_sub_1 s1 UNION ALL SELECT CAST(NULL AS INTEGER) FROM table_per_class_sub_2 s2"
+            )
+        });
+        queries.put("selectMultipleTreatedRootBasic", new String[] {
+            "SELECT TREAT(b AS " + strategy + "Sub1).sub1Value, TREAT(b AS " + strategy + "Sub2).sub2Value FROM " + strategy + "Base b",
+            sql(
+                "SELECT s1.sub1Value, s2.sub2Value FROM joined_base b LEFT JOIN joined_sub_1 s1 ON s1.id = b.id LEFT JOIN joined_sub_2 s2 ON s2.id = b.id",
+                "SELECT CASE WHEN b.DTYPE = 'SingleTableSub1' THEN b.sub1Value END, CASE WHEN b.DTYPE = 'SingleTableSub2' THEN b.sub2Value END FROM single_table_base b",
+                "SELECT s1.sub1Value, CAST(NULL AS INTEGER) FROM table_per_class_sub_1 s1 UNION ALL SELECT CAST(NULL AS INTEGER), s2.sub2Value FROM table_per_class_sub_2 s2"
+            )
+        });
+        queries.put("whereTreatedRootBasic", new String[] {
+            "SELECT b.name FROM " + strategy + "Base b WHERE COALESCE(TREAT(b AS " + strategy + "Sub1).sub1Value, 0) < 100",
+            // Derby drops the rows without subtype row for a COALESCE over the outer joined column
+            sql(
+                "SELECT b.name FROM joined_base b LEFT JOIN joined_sub_1 s1 ON s1.id = b.id WHERE s1.sub1Value IS NULL OR s1.sub1Value < 100",
+                "SELECT b.name FROM single_table_base b WHERE b.DTYPE <> 'SingleTableSub1' OR COALESCE(b.sub1Value, 0) < 100",
+                "SELECT s1.name FROM table_per_class_sub_1 s1 WHERE COALESCE(s1.sub1Value, 0) < 100 UNION ALL SELECT s2.name FROM table_per_class_sub_2 s2"
+            )
+        });
+        queries.put("whereTreatedRootConditionBasic", new String[] {
+            "SELECT b.name FROM " + strategy + "Base b WHERE TREAT(b AS " + strategy + "Sub1).sub1Value = 101",
+            sql(
+                "SELECT b.name FROM joined_base b JOIN joined_sub_1 s1 ON s1.id = b.id WHERE s1.sub1Value = 101",
+                "SELECT b.name FROM single_table_base b WHERE b.DTYPE = 'SingleTableSub1' AND b.sub1Value = 101",
+                "SELECT s1.name FROM table_per_class_sub_1 s1 WHERE s1.sub1Value = 101"
+            )
+        });
+        queries.put("whereMultipleTreatedRootConditionBasic", new String[] {
+            "SELECT b.name FROM " + strategy + "Base b WHERE TREAT(b AS " + strategy + "Sub1).sub1Value = 101 OR TREAT(b AS " + strategy + "Sub2).sub2Value = 102",
+            sql(
+                "SELECT b.name FROM joined_base b LEFT JOIN joined_sub_1 s1 ON s1.id = b.id LEFT JOIN joined_sub_2 s2 ON s2.id = b.id WHERE s1.sub1Value = 101 OR s2.sub2Value = 102",
+                "SELECT b.name FROM single_table_base b WHERE b.DTYPE = 'SingleTableSub1' AND b.sub1Value = 101 OR b.DTYPE = 'SingleTableSub2' AND b.sub2Value = 102",
+                "SELECT s1.name FROM table_per_class_sub_1 s1 WHERE s1.sub1Value = 101 UNION ALL SELECT s2.name FROM table_per_class_sub_2 s2 WHERE s2.sub2Value = 102"
+            )
+        });
+        queries.put("whereTreatedRootConditionSuperTypeAccess", new String[] {
+            "SELECT b.name FROM " + strategy + "Base b WHERE TREAT(b AS " + strategy + "Sub1).value > 100",
+            sql(
+                "SELECT b.name FROM joined_base b JOIN joined_sub_1 s1 ON s1.id = b.id WHERE b.value > 100",
+                "SELECT b.name FROM single_table_base b WHERE b.DTYPE = 'SingleTableSub1' AND b.value > 100",
+                "SELECT s1.name FROM table_per_class_sub_1 s1 WHERE s1.value > 100"
+            )
+        });
+        return queries;
+    }
+
+    /**
+     * A treat join of the ManyToOne parent, which only needs the table of the treated subtype for the parent.
+     */
+    private Map<String, String[]> treatJoinQueries() {
+        Map<String, String[]> queries = new LinkedHashMap<>();
+        queries.put("treatJoinManyToOne", new String[] {
+            "SELECT b.name FROM " + strategy + "Base b JOIN TREAT(b.parent AS " + strategy + "Sub1) s1 WHERE s1.sub1Value = 101",
+            sql(
+                "SELECT b.name FROM joined_base b JOIN joined_sub_1 p ON p.id = b.parent_id WHERE p.sub1Value = 101",
+                "SELECT b.name FROM single_table_base b JOIN single_table_base p ON p.id = b.parent_id AND p.DTYPE = 'SingleTableSub1' WHERE p.sub1Value = 101",
+                "SELECT b.name FROM (SELECT s1.name, s1.parent_id FROM table_per_class_sub_1 s1 UNION ALL SELECT s2.name, s2.parent_id FROM table_per_class_sub_2 s2) b "
+                    + "JOIN table_per_class_sub_1 p ON p.id = b.parent_id WHERE p.sub1Value = 101"
+            )
+        });
+        return queries;
+    }
+
+    private String sql(String joined, String singleTable, String tablePerClass) {
+        switch (strategy) {
+            case "Joined":
+                return joined;
+            case "SingleTable":
+                return singleTable;
+            default:
+                return tablePerClass;
+        }
+    }
+
+    /**
+     * Measures every JPQL query and its optimal SQL and reports the overhead factor of the provider.
+     * The row counts of both show whether the provider computed the expected result at all.
+     * A query the provider can't run still has its optimal SQL measured and fails the test after all queries were measured.
+     */
+    private void measureQueries(Map<String, String[]> queries) throws Exception {
+        Map<String, RuntimeException> errors = new LinkedHashMap<>();
+        for (Map.Entry<String, String[]> entry : queries.entrySet()) {
+            String name = entry.getKey();
+            final String jpql = entry.getValue()[0];
+            final String sql = entry.getValue()[1];
+
+            Map<String, Object> optimal = Benchmark.measure(name + "Optimal", new Benchmark.Operation() {
+                @Override
+                public void run() {
+                    EntityManager em = emf.createEntityManager();
+                    try {
+                        em.createNativeQuery(sql).getResultList();
+                    } finally {
+                        em.close();
+                    }
+                }
+            });
+            metrics.putAll(optimal);
+            metrics.put(name + "OptimalRows", countRows(sql, true));
+
+            Map<String, Object> provider;
+            try {
+                metrics.put(name + "Rows", countRows(jpql, false));
+                provider = Benchmark.measure(name, new Benchmark.Operation() {
+                    @Override
+                    public void run() {
+                        EntityManager em = emf.createEntityManager();
+                        try {
+                            em.createQuery(jpql).getResultList();
+                        } finally {
+                            em.close();
+                        }
+                    }
+                });
+            } catch (RuntimeException ex) {
+                // A query the provider doesn't support shouldn't prevent measuring the other queries, but still fails the test
+                errors.put(name, ex);
+                continue;
+            }
+            metrics.putAll(provider);
+            long optimalMicros = ((Number) optimal.get(name + "OptimalAvgMicros")).longValue();
+            long providerMicros = ((Number) provider.get(name + "AvgMicros")).longValue();
+            if (optimalMicros != 0) {
+                metrics.put(name + "OverheadFactor", Math.round(providerMicros * 100.0 / optimalMicros) / 100.0);
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            AssertionError error = new AssertionError("Failed queries: " + errors.keySet());
+            error.initCause(errors.values().iterator().next());
+            throw error;
+        }
+    }
+
+    private int countRows(String query, boolean nativeQuery) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return (nativeQuery ? em.createNativeQuery(query) : em.createQuery(query)).getResultList().size();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package jpa.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import jpa.test.entities.Base;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Pages over queries with a treat join of a collection. If the SQL of a page has no row limiting clause, the provider reads the full result
+ * and pages in memory or via JDBC, which gets slower with every row. Every test first asserts that the pages together return the unpaged result
+ * on the fixture and then measures the first and the last page while the data grows.
+ */
+public class PaginationTest extends AbstractBenchmarkTest {
+
+    // The row limiting clauses of the supported databases
+    private static final Pattern LIMIT = Pattern.compile("\\b(?:limit|offset|fetch\\s+(?:first|next)|rownum|top)\\b", Pattern.CASE_INSENSITIVE);
+    private static final int PAGE_SIZE = 3;
+    private static final int GROWTH_STEPS = 3;
+
+    public PaginationTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Test
+    public void pageTreatJoinOneToManyListValues() throws Exception {
+        assertPagination("SELECT b.id, s1.sub1Value FROM " + strategy + "Base b LEFT JOIN TREAT(b.list AS " + strategy + "Sub1) s1 ORDER BY b.id, s1.sub1Value");
+    }
+
+    @Test
+    public void pageTreatJoinOneToManyListRoots() throws Exception {
+        assertPagination("SELECT b FROM " + strategy + "Base b LEFT JOIN TREAT(b.list AS " + strategy + "Sub1) s1 WHERE s1.sub1Value IS NULL OR s1.sub1Value > 0 ORDER BY b.id");
+    }
+
+    @Test
+    public void pageFetchJoinOneToManyListWithTreatJoin() throws Exception {
+        assertPagination("SELECT b FROM " + strategy + "Base b LEFT JOIN FETCH b.list LEFT JOIN TREAT(b.list AS " + strategy + "Sub1) s1 ORDER BY b.id");
+    }
+
+    @Test
+    public void pageTreatFetchJoinOneToManyList() throws Exception {
+        assertPagination("SELECT b FROM " + strategy + "Base b LEFT JOIN FETCH TREAT(b.list AS " + strategy + "Sub1) ORDER BY b.id");
+    }
+
+    /**
+     * Asserts that all pages of the query return the unpaged result and puts whether the provider pages in memory,
+     * then measures the first and the last page for every growth step of the data.
+     */
+    private void assertPagination(final String query) throws Exception {
+        List<String> expected = keys(getResultList(query, -1));
+        List<String> paged = new ArrayList<>();
+        for (int firstResult = 0; firstResult < expected.size(); firstResult += PAGE_SIZE) {
+            paged.addAll(keys(getResultList(query, firstResult)));
+        }
+        Assert.assertEquals(expected, paged);
+
+        // Without the statements it is unknown, so the metric is left out
+        if (JpaProvider.RECORDS_STATEMENTS) {
+            boolean inMemory = isPagedInMemory(query);
+            metrics.put("inMemoryPagination", inMemory);
+            if (inMemory) {
+                System.err.println("WARNING: " + testName.getMethodName() + " pages in memory, the SQL has no row limit: " + query);
+            }
+        }
+
+        for (int step = 1; step <= GROWTH_STEPS; step++) {
+            scaleFixture();
+            final int rows = count(query);
+            metrics.put("step" + step + "Rows", rows);
+            benchmark("step" + step + "FirstPage", new Benchmark.Operation() {
+                @Override
+                public void run() {
+                    getResultList(query, 0);
+                }
+            });
+            benchmark("step" + step + "LastPage", new Benchmark.Operation() {
+                @Override
+                public void run() {
+                    getResultList(query, Math.max(0, rows - PAGE_SIZE));
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns whether the statement of a page lacks a row limiting clause. Only the first statement is checked,
+     * later ones are lazy or secondary loads of the results, so it needs a provider that records its statements.
+     */
+    private boolean isPagedInMemory(String query) {
+        int start = JpaProvider.getStatements(emf).size();
+        getResultList(query, PAGE_SIZE);
+        return !LIMIT.matcher(JpaProvider.getStatements(emf).get(start)).find();
+    }
+
+    /**
+     * Returns the page of the query starting at the given result or the whole result for a negative first result.
+     */
+    private List<?> getResultList(String query, int firstResult) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            Query q = em.createQuery(query);
+            if (firstResult >= 0) {
+                q.setFirstResult(firstResult);
+                q.setMaxResults(PAGE_SIZE);
+            }
+            return q.getResultList();
+        } finally {
+            em.close();
+        }
+    }
+
+    private int count(String query) {
+        return getResultList(query, -1).size();
+    }
+
+    /**
+     * Returns the names of the roots or the values of the rows, so that results of different entity managers compare.
+     */
+    private static List<String> keys(List<?> results) {
+        List<String> keys = new ArrayList<>();
+        for (Object result : results) {
+            if (result instanceof Object[]) {
+                Object[] row = (Object[]) result;
+                keys.add(row[0] + ", " + row[1]);
+            } else {
+                keys.add(((Base<?, ?>) result).getName());
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,139 @@
+package jpa.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * The multiple treated selects of the Select*Test classes as <code>Object[]</code>, <code>Tuple</code> and constructor expression.
+ * Every test first asserts that all result types contain the same values on the fixture and then measures them on scaled data.
+ */
+public class ProjectionBenchmarkTest extends AbstractBenchmarkTest {
+
+    public ProjectionBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Test
+    public void projectMultipleTreatedRoot() throws Exception {
+        measureProjections("b");
+    }
+
+    @Test
+    public void projectMultipleTreatedManyToOne() throws Exception {
+        measureProjections("b.parent");
+    }
+
+    @Test
+    public void projectMultipleTreatedOneToManyList() throws Exception {
+        measureProjections("b.list");
+    }
+
+    @Test
+    public void projectMultipleTreatedOneToManyInverseSet() throws Exception {
+        measureProjections("b.children");
+    }
+
+    @Test
+    public void projectMultipleTreatedManyToManyMapKey() throws Exception {
+        measureProjections("KEY(b.map)");
+    }
+
+    @Test
+    public void projectMultipleTreatedManyToManyMapValue() throws Exception {
+        measureProjections("b.map");
+    }
+
+    private void measureProjections(String path) throws Exception {
+        String selection = "TREAT(" + path + " AS " + strategy + "Sub1).sub1Value, TREAT(" + path + " AS " + strategy + "Sub2).sub2Value";
+        final String query = "SELECT " + selection + " FROM " + strategy + "Base b";
+        final String constructorQuery = "SELECT NEW " + SubValuesDto.class.getName() + "(" + selection + ") FROM " + strategy + "Base b";
+
+        List<String> expected = values(query, Object[].class);
+        Assert.assertEquals(expected, values(query, Tuple.class));
+        Assert.assertEquals(expected, values(constructorQuery, SubValuesDto.class));
+
+        scaleFixture();
+        measure("objectArray", query, Object[].class);
+        measure("tuple", query, Tuple.class);
+        measure("constructor", constructorQuery, SubValuesDto.class);
+    }
+
+    /**
+     * Puts the latency and the allocated bytes per execution, which include reading both values of every result.
+     */
+    private void measure(String name, final String query, final Class<?> resultClass) throws Exception {
+        Benchmark.Operation operation = new Benchmark.Operation() {
+            @Override
+            public void run() {
+                EntityManager em = emf.createEntityManager();
+                try {
+                    int sum = 0;
+                    for (Object result : em.createQuery(query, resultClass).getResultList()) {
+                        sum += sum(result);
+                    }
+                    if (sum < 0) {
+                        throw new IllegalStateException("Negative values");
+                    }
+                } finally {
+                    em.close();
+                }
+            }
+        };
+        benchmark(name, operation);
+        metrics.putAll(Benchmark.measureAllocations(name, operation));
+    }
+
+    /**
+     * Returns the values of every result of the query as sorted strings.
+     */
+    private List<String> values(String query, Class<?> resultClass) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            List<String> values = new ArrayList<>();
+            for (Object result : em.createQuery(query, resultClass).getResultList()) {
+                Integer[] resultValues = getValues(result);
+                values.add(resultValues[0] + ", " + resultValues[1]);
+            }
+            Collections.sort(values);
+            return values;
+        } finally {
+            em.close();
+        }
+    }
+
+    private static Integer[] getValues(Object result) {
+        if (result instanceof Object[]) {
+            Object[] array = (Object[]) result;
+            return new Integer[] { (Integer) array[0], (Integer) array[1] };
+        } else if (result instanceof Tuple) {
+            Tuple tuple = (Tuple) result;
+            return new Integer[] { tuple.get(0, Integer.class), tuple.get(1, Integer.class) };
+        }
+        SubValuesDto dto = (SubValuesDto) result;
+        return new Integer[] { dto.getSub1Value(), dto.getSub2Value() };
+    }
+
+    /**
+     * Reads the values of the result without allocating, so that the allocated bytes are only those of the query.
+     */
+    private static int sum(Object result) {
+        if (result instanceof Object[]) {
+            Object[] array = (Object[]) result;
+            return valueOf((Integer) array[0]) + valueOf((Integer) array[1]);
+        } else if (result instanceof Tuple) {
+            Tuple tuple = (Tuple) result;
+            return valueOf(tuple.get(0, Integer.class)) + valueOf(tuple.get(1, Integer.class));
+        }
+        SubValuesDto dto = (SubValuesDto) result;
+        return valueOf(dto.getSub1Value()) + valueOf(dto.getSub2Value());
+    }
+
+    private static int valueOf(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
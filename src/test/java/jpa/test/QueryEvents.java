@@ -0,0 +1,71 @@
+package jpa.test;
+
+/**
+ * Events for the phases of {@link AbstractTreatVariationsTest#list(String, Class)}, so that a flight recording relates
+ * garbage collections, lock contention and allocations to the treat query that caused them. The events are only emitted
+ * with the system property <code>jfr</code> and need the recorder of the <code>jfr</code> profile, without it the methods do nothing,
+ * so that the tests also compile and run on JVMs without flight recorder.
+ * JPA executes the SQL and hydrates the results in one call, so the providers report the end of every statement execution
+ * via {@link #statementExecuted()}, which ends the execution and begins the hydration of the current query.
+ */
+final class QueryEvents {
+
+    static final boolean ENABLED = Boolean.getBoolean("jfr");
+    static final String CREATE_QUERY = "createQuery";
+    static final String GET_RESULT_LIST = "getResultList";
+
+    private QueryEvents() {
+    }
+
+    /**
+     * Begins the event of the given phase and returns it for {@link #end(Object)}, or null if the events are disabled.
+     */
+    static Object begin(String phase, String testName, String strategy, String jpql) {
+        return ENABLED ? RecorderHolder.RECORDER.begin(phase, testName, strategy, jpql) : null;
+    }
+
+    static void end(Object event) {
+        if (event != null) {
+            RecorderHolder.RECORDER.end(event);
+        }
+    }
+
+    /**
+     * Ends the execution of the query of the calling thread and begins its hydration, which includes the statements of eagerly loaded associations.
+     */
+    static void statementExecuted() {
+        if (ENABLED) {
+            RecorderHolder.RECORDER.statementExecuted();
+        }
+    }
+
+    /**
+     * Emits the events, implemented by <code>FlightRecorderQueryEvents</code> of the <code>jfr</code> profile.
+     */
+    interface Recorder {
+
+        Object begin(String phase, String testName, String strategy, String jpql);
+
+        void end(Object event);
+
+        void statementExecuted();
+    }
+
+    /**
+     * Only loaded with the events enabled, so that the recorder isn't needed otherwise.
+     */
+    private static final class RecorderHolder {
+
+        static final Recorder RECORDER = createRecorder();
+
+        private static Recorder createRecorder() {
+            try {
+                return (Recorder) Class.forName("jpa.test.FlightRecorderQueryEvents").newInstance();
+            } catch (ClassNotFoundException ex) {
+                throw new IllegalStateException("The system property jfr needs the jfr profile, which is active on Java 11 and later", ex);
+            } catch (InstantiationException | IllegalAccessException ex) {
+                throw new IllegalStateException("Couldn't create the flight recorder events", ex);
+            }
+        }
+    }
+}
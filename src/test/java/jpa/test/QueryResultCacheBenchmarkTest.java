@@ -0,0 +1,125 @@
+package jpa.test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.TypedQuery;
+import jpa.test.entities.Sub1;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class QueryResultCacheBenchmarkTest extends AbstractBenchmarkTest {
+
+    private final Set<String> queryNames = new HashSet<>();
+
+    public QueryResultCacheBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Override
+    protected boolean isQueryResultCacheEnabled() {
+        return true;
+    }
+
+    @Override
+    protected String getSharedCacheMode() {
+        // EclipseLink isolates the query results cache per entity manager when the shared cache is disabled
+        String sharedCacheMode = super.getSharedCacheMode();
+        return sharedCacheMode == null ? "ENABLE_SELECTIVE" : sharedCacheMode;
+    }
+
+    private String treatProjection() {
+        return "SELECT TREAT(b AS " + strategy + "Sub1).sub1Value FROM " + strategy + "Base b";
+    }
+
+    private String treatJoinProjection() {
+        return "SELECT p.sub1Value FROM " + strategy + "Base b LEFT JOIN TREAT(b.parent AS " + strategy + "Sub1) p";
+    }
+
+    @Test
+    public void uncachedTreatProjection() throws Exception {
+        measure(treatProjection(), false);
+    }
+
+    @Test
+    public void cachedTreatProjection() throws Exception {
+        measure(treatProjection(), true);
+    }
+
+    @Test
+    public void uncachedTreatJoinProjection() throws Exception {
+        measure(treatJoinProjection(), false);
+    }
+
+    @Test
+    public void cachedTreatJoinProjection() throws Exception {
+        measure(treatJoinProjection(), true);
+    }
+
+    @Test
+    public void cachedTreatJoinProjectionInvalidation() {
+        // Fill the cache
+        Assert.assertEquals(query(treatJoinProjection(), false), query(treatJoinProjection(), true));
+
+        // The result must come from the cache, otherwise the check below proves nothing
+        List<Integer> expected = query(treatJoinProjection(), false);
+        int statements = JpaProvider.getStatements(emf).size();
+        Assert.assertEquals(expected, query(treatJoinProjection(), true));
+        Assert.assertEquals("The cached query executed a statement", statements, JpaProvider.getStatements(emf).size());
+
+        EntityManager em = emf.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        tx.begin();
+        // The sub1Value of a parent, so that the change is part of the result
+        Sub1<?, ?, ?> s1 = em.createQuery("SELECT b FROM " + strategy + "Sub1 b WHERE b.sub1Value = :value", Sub1.class)
+                .setParameter("value", expected.get(expected.size() - 1))
+                .getSingleResult();
+        s1.setSub1Value(11);
+        tx.commit();
+        em.close();
+
+        // The cached result must reflect the change
+        List<Integer> uncached = query(treatJoinProjection(), false);
+        List<Integer> cached = query(treatJoinProjection(), true);
+        Assert.assertTrue(uncached + " does not contain the changed value", uncached.contains(11));
+        Assert.assertEquals(uncached, cached);
+    }
+
+    private void measure(final String queryString, final boolean cached) throws Exception {
+        benchmark("query", new Benchmark.Operation() {
+            @Override
+            public void run() {
+                query(queryString, cached);
+            }
+        });
+    }
+
+    private List<Integer> query(String queryString, boolean cached) {
+        EntityManager em = emf.createEntityManager();
+        // EclipseLink only caches the results of named queries, so the uncached queries are named queries as well to run the same way
+        String queryName = (cached ? "cached " : "uncached ") + queryString;
+        if (queryNames.add(queryName)) {
+            TypedQuery<Integer> query = em.createQuery(queryString, Integer.class);
+            emf.addNamedQuery(queryName, cached ? cacheable(query) : query);
+        }
+        @SuppressWarnings("unchecked")
+        List<Integer> result = new ArrayList<>((List<Integer>) JpaProvider.getNamedQueryResultList(em, queryName));
+        em.close();
+        // Nulls first, so that the results are comparable
+        Collections.sort(result, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                if (o1 == null) {
+                    return o2 == null ? 0 : -1;
+                }
+                return o2 == null ? 1 : o1.compareTo(o2);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,126 @@
+package jpa.test;
+
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Loads large polymorphic result sets once as usual and once with the read-only hints of the provider,
+ * for which the persistence context keeps no snapshots of the results for dirty checking.
+ * The treated values are a control, since scalar results are never managed and shouldn't get cheaper.
+ */
+public class ReadOnlyBenchmarkTest extends AbstractBenchmarkTest {
+
+    public ReadOnlyBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Before
+    public void scaleData() throws Exception {
+        // Enough results so that the snapshots show in the allocations and the retained heap
+        scaleFixture();
+    }
+
+    @Test
+    public void readOnlyRootEntities() throws Exception {
+        measureReadOnly("SELECT b FROM " + strategy + "Base b", Object.class);
+    }
+
+    @Test
+    public void readOnlyTreatedManyToOneEntities() throws Exception {
+        measureReadOnly("SELECT s1 FROM " + strategy + "Base b JOIN TREAT(b.parent AS " + strategy + "Sub1) s1", Object.class);
+    }
+
+    @Test
+    public void readOnlyTreatedValues() throws Exception {
+        measureReadOnly("SELECT TREAT(b AS " + strategy + "Sub1).sub1Value, TREAT(b AS " + strategy + "Sub2).sub2Value FROM " + strategy + "Base b", Object[].class);
+    }
+
+    /**
+     * Puts the metrics of the read-write and the read-only query and what the read-only query saves in time and memory.
+     */
+    private void measureReadOnly(String query, Class<?> resultClass) throws Exception {
+        Assert.assertEquals(count(query, resultClass, false), count(query, resultClass, true));
+
+        Map<String, Object> readWrite = measure("readWrite", query, resultClass, false);
+        Map<String, Object> readOnly = measure("readOnly", query, resultClass, true);
+        metrics.putAll(readWrite);
+        metrics.putAll(readOnly);
+        putSaved("Micros", readWrite.get("readWriteAvgMicros"), readOnly.get("readOnlyAvgMicros"));
+        putSaved("AllocatedBytes", readWrite.get("readWriteAllocatedBytes"), readOnly.get("readOnlyAllocatedBytes"));
+        putSaved("RetainedBytes", readWrite.get("readWriteRetainedBytes"), readOnly.get("readOnlyRetainedBytes"));
+    }
+
+    /**
+     * Returns the latency, the allocated bytes per execution and the heap the results and the persistence context retain while the entity manager is open.
+     */
+    private Map<String, Object> measure(String name, final String query, final Class<?> resultClass, final boolean readOnly) throws Exception {
+        Benchmark.Operation operation = new Benchmark.Operation() {
+            @Override
+            public void run() {
+                EntityManager em = emf.createEntityManager();
+                try {
+                    createQuery(em, query, resultClass, readOnly).getResultList().size();
+                } finally {
+                    em.close();
+                }
+            }
+        };
+        Map<String, Object> result = Benchmark.measure(name, operation);
+        result.putAll(Benchmark.measureAllocations(name, operation));
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            long usedBytes = getUsedBytes();
+            List<?> results = createQuery(em, query, resultClass, readOnly).getResultList();
+            result.put(name + "RetainedBytes", getUsedBytes() - usedBytes);
+            Assert.assertNotNull(results);
+        } finally {
+            em.close();
+        }
+        return result;
+    }
+
+    private int count(String query, Class<?> resultClass, boolean readOnly) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return createQuery(em, query, resultClass, readOnly).getResultList().size();
+        } finally {
+            em.close();
+        }
+    }
+
+    private <T> TypedQuery<T> createQuery(EntityManager em, String query, Class<T> resultClass, boolean readOnly) {
+        TypedQuery<T> q = em.createQuery(query, resultClass);
+        return readOnly ? readOnly(q) : q;
+    }
+
+    /**
+     * Puts the difference between the read-write and the read-only value, positive when the read-only query is cheaper.
+     */
+    private void putSaved(String suffix, Object readWrite, Object readOnly) {
+        if (readWrite instanceof Number && readOnly instanceof Number) {
+            long readWriteValue = ((Number) readWrite).longValue();
+            long saved = readWriteValue - ((Number) readOnly).longValue();
+            metrics.put("saved" + suffix, saved);
+            if (readWriteValue > 0) {
+                metrics.put("saved" + suffix + "Percent", Math.round(saved * 1000.0 / readWriteValue) / 10.0);
+            }
+        }
+    }
+
+    /**
+     * Returns the used heap after collecting the garbage, which is only an estimate since the collection is merely requested.
+     */
+    private static long getUsedBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
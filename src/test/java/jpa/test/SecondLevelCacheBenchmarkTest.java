@@ -0,0 +1,93 @@
+package jpa.test;
+
+import java.util.List;
+import javax.persistence.EntityManager;
+import jpa.test.entities.Base;
+import jpa.test.entities.Sub1;
+import jpa.test.entities.Sub2;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SecondLevelCacheBenchmarkTest extends AbstractBenchmarkTest {
+
+    public SecondLevelCacheBenchmarkTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Override
+    protected String getSharedCacheMode() {
+        String sharedCacheMode = super.getSharedCacheMode();
+        return sharedCacheMode == null ? "ENABLE_SELECTIVE" : sharedCacheMode;
+    }
+
+    @Test
+    public void repeatedTreatQuery() throws Exception {
+        final String query = "SELECT b FROM " + strategy + "Base b LEFT JOIN TREAT(b.parent AS " + strategy + "Sub1) p WHERE p.sub1Value = 101";
+        // Start cold, the warmup iterations fill the cache
+        emf.getCache().evictAll();
+
+        benchmark("query", new Benchmark.Operation() {
+            @Override
+            public void run() {
+                EntityManager em = emf.createEntityManager();
+                List<Base> bases = em.createQuery(query, Base.class).getResultList();
+
+                // Only s1 has a Sub1 parent with that value
+                Assert.assertEquals(1, bases.size());
+                Assert.assertEquals(objectPrefix + "1.parent", bases.get(0).getParent().getName());
+                em.close();
+            }
+        });
+    }
+
+    @Test
+    public void lazyParentResolution() throws Exception {
+        // Only select the children so that the parents aren't already part of the persistence context
+        final String query = "SELECT b FROM " + strategy + "Base b WHERE b.parent IS NOT NULL";
+        emf.getCache().evictAll();
+
+        benchmark("parent", new Benchmark.Operation() {
+            @Override
+            public void run() {
+                EntityManager em = emf.createEntityManager();
+                List<Base> bases = em.createQuery(query, Base.class).getResultList();
+                int resolved = 0;
+
+                for (Base b : bases) {
+                    resolved += resolve(b.getParent());
+                    if (b instanceof Sub1) {
+                        resolved += resolve(((Sub1) b).getParent1());
+                    } else if (b instanceof Sub2) {
+                        resolved += resolve(((Sub2) b).getParent2());
+                    }
+                }
+
+                // s1 and s2 have parent and parent1/parent2 set
+                Assert.assertEquals(2, bases.size());
+                Assert.assertEquals(4, resolved);
+                em.close();
+            }
+        });
+    }
+
+    private static int resolve(Base<?, ?> base) {
+        if (base == null) {
+            return 0;
+        }
+        // Accessing a property initializes lazy proxies
+        base.getName();
+        return 1;
+    }
+
+    @Override
+    protected void closeEntityManagerFactory() {
+        super.closeEntityManagerFactory();
+        Object hits = metrics.get("cacheHits");
+        Object misses = metrics.get("cacheMisses");
+
+        if (hits instanceof Number && misses instanceof Number) {
+            long lookups = ((Number) hits).longValue() + ((Number) misses).longValue();
+            metrics.put("cacheHitRatio", lookups == 0 ? "0%" : ((Number) hits).longValue() * 100 / lookups + "%");
+        }
+    }
+}
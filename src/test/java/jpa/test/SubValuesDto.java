@@ -0,0 +1,28 @@
+package jpa.test;
+
+/**
+ * The result of a constructor expression that selects a value of each subtype.
+ */
+public class SubValuesDto {
+
+    private final Integer sub1Value;
+    private final Integer sub2Value;
+
+    public SubValuesDto(Integer sub1Value, Integer sub2Value) {
+        this.sub1Value = sub1Value;
+        this.sub2Value = sub2Value;
+    }
+
+    public Integer getSub1Value() {
+        return sub1Value;
+    }
+
+    public Integer getSub2Value() {
+        return sub2Value;
+    }
+
+    @Override
+    public String toString() {
+        return sub1Value + ", " + sub2Value;
+    }
+}
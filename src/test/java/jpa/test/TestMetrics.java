@@ -0,0 +1,128 @@
+package jpa.test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * Collects provider metrics per test case and writes them next to the surefire XML reports
+ * as <code>METRICS-&lt;test class&gt;.xml</code> so the report can pick them up.
+ */
+public final class TestMetrics {
+
+    private static final Map<String, Map<String, Map<String, Object>>> METRICS = new LinkedHashMap<>();
+    private static final Pattern TABLE = Pattern.compile("\\b(?:joined|single_table|table_per_class)_\\w+", Pattern.CASE_INSENSITIVE);
+
+    private TestMetrics() {
+    }
+
+    /**
+     * Returns the number of bytes the current thread allocated so far or -1 if the JVM can't tell.
+     */
+    public static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        // Only HotSpot based JVMs support this
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the tables every statement accesses besides its first one, which are the joined or united tables.
+     */
+    public static int countJoinedTables(List<String> statements) {
+        int joins = 0;
+        for (String sql : statements) {
+            if (sql == null) {
+                continue;
+            }
+
+            Matcher matcher = TABLE.matcher(sql);
+            int tables = 0;
+            while (matcher.find()) {
+                tables++;
+            }
+            joins += Math.max(0, tables - 1);
+        }
+        return joins;
+    }
+
+    public static synchronized void record(Class<?> testClass, String testName, Map<String, Object> metrics) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+
+        Map<String, Map<String, Object>> testCases = METRICS.get(testClass.getName());
+        if (testCases == null) {
+            testCases = new LinkedHashMap<>();
+            METRICS.put(testClass.getName(), testCases);
+        }
+
+        testCases.put(testName, new LinkedHashMap<>(metrics));
+    }
+
+    public static synchronized void write(Class<?> testClass) {
+        Map<String, Map<String, Object>> testCases = METRICS.remove(testClass.getName());
+        if (testCases == null) {
+            // Always write the file so the report finds one for every test suite
+            testCases = Collections.emptyMap();
+        }
+
+        File directory = new File(System.getProperty("metrics.directory", "target/surefire-reports"));
+        directory.mkdirs();
+        File file = new File(directory, "METRICS-" + testClass.getName() + ".xml");
+
+        try (OutputStream os = new FileOutputStream(file)) {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(os, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.writeCharacters("\n");
+            writer.writeStartElement("metrics");
+            writer.writeAttribute("name", testClass.getName());
+            writer.writeAttribute("provider", JpaProvider.NAME);
+            String version = JpaProvider.getVersion();
+            if (version != null) {
+                writer.writeAttribute("version", version);
+            }
+            writer.writeAttribute("database", Database.NAME);
+
+            for (Map.Entry<String, Map<String, Object>> testCase : testCases.entrySet()) {
+                writer.writeCharacters("\n  ");
+                writer.writeStartElement("testcase");
+                writer.writeAttribute("name", testCase.getKey());
+                writer.writeAttribute("classname", testClass.getName());
+
+                for (Map.Entry<String, Object> metric : testCase.getValue().entrySet()) {
+                    if (metric.getValue() != null) {
+                        writer.writeCharacters("\n    ");
+                        writer.writeEmptyElement("metric");
+                        writer.writeAttribute("name", metric.getKey());
+                        writer.writeAttribute("value", metric.getValue().toString());
+                    }
+                }
+
+                writer.writeCharacters("\n  ");
+                writer.writeEndElement();
+            }
+
+            writer.writeCharacters("\n");
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+        } catch (IOException | XMLStreamException ex) {
+            throw new IllegalStateException("Could not write metrics to " + file, ex);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package jpa.test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Runs thousands of entity managers concurrently on virtual threads, every one executing a treat query of the suite
+ * against a pooled H2 data source. Besides the throughput, it reports the <code>jdk.VirtualThreadPinned</code> events,
+ * which happen when a virtual thread blocks while it can't unmount from its carrier thread e.g. inside a synchronized block,
+ * and the provider or driver frames that pinned most often.
+ * Use the system properties <code>load.tasks</code> and <code>load.connections</code> for real measurements.
+ */
+public class VirtualThreadLoadTest extends AbstractBenchmarkTest {
+
+    // The packages whose frames the pinning is attributed to, the first one from the top of the stack counts
+    private static final List<String> PACKAGES = Arrays.asList("org.hibernate.", "org.eclipse.persistence.", "org.datanucleus.", "org.h2.");
+
+    private JdbcConnectionPool dataSource;
+
+    public VirtualThreadLoadTest(String strategy, String objectPrefix) {
+        super(strategy, objectPrefix);
+    }
+
+    @Override
+    protected Map<String, Object> getProperties() {
+        Assume.assumeTrue("The load driver pools H2 connections", "h2".equals(Database.NAME));
+        dataSource = JdbcConnectionPool.create(Database.URL, Database.USER, Database.PASSWORD);
+        dataSource.setMaxConnections(Integer.getInteger("load.connections", 20));
+
+        Map<String, Object> properties = super.getProperties();
+        properties.remove("javax.persistence.jdbc.url");
+        properties.remove("javax.persistence.jdbc.driver");
+        properties.put("javax.persistence.nonJtaDataSource", withoutCredentials(dataSource));
+        return properties;
+    }
+
+    /**
+     * Returns a data source that ignores the credentials providers like EclipseLink pass, which the H2 pool doesn't support.
+     */
+    private static DataSource withoutCredentials(DataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[] { DataSource.class }, (proxy, method, args) -> {
+            try {
+                if ("getConnection".equals(method.getName())) {
+                    return dataSource.getConnection();
+                }
+                return method.invoke(dataSource, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        });
+    }
+
+    @After
+    public void closeDataSource() {
+        if (dataSource != null) {
+            dataSource.dispose();
+        }
+    }
+
+    @Test
+    public void virtualThreadLoad() throws Exception {
+        List<String> queries = List.of(
+            "SELECT s1.sub1Value FROM " + strategy + "Base b LEFT JOIN TREAT(b.parent AS " + strategy + "Sub1) s1",
+            "SELECT s1.sub1Value FROM " + strategy + "Base b LEFT JOIN TREAT(b.list AS " + strategy + "Sub1) s1",
+            "SELECT b.name FROM " + strategy + "Base b WHERE TYPE(b) = " + strategy + "Sub1",
+            "SELECT b FROM " + strategy + "Base b"
+        );
+        int tasks = Integer.getInteger("load.tasks", 2000);
+
+        AtomicInteger pinnedEvents = new AtomicInteger();
+        AtomicLong pinnedNanos = new AtomicLong();
+        Map<String, Integer> pinnedFrames = new ConcurrentHashMap<>();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicReference<String> firstError = new AtomicReference<>();
+
+        long start;
+        long end;
+        try (RecordingStream recording = new RecordingStream()) {
+            // The default threshold of 20 ms would hide the short pins of in-memory queries
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> {
+                pinnedEvents.incrementAndGet();
+                pinnedNanos.addAndGet(event.getDuration().toNanos());
+                pinnedFrames.merge(getPinningFrame(event), 1, Integer::sum);
+            });
+            recording.startAsync();
+
+            start = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < tasks; i++) {
+                    String query = queries.get(i % queries.size());
+                    executor.submit(() -> {
+                        EntityManager em = emf.createEntityManager();
+                        try {
+                            em.createQuery(query).getResultList();
+                        } catch (RuntimeException ex) {
+                            // Queries a provider doesn't support are left out of the throughput
+                            errors.incrementAndGet();
+                            firstError.compareAndSet(null, ex.getClass().getSimpleName() + ": " + query);
+                        } finally {
+                            em.close();
+                        }
+                    });
+                }
+            }
+            end = System.nanoTime();
+            // Waits until the events of the load are processed
+            recording.stop();
+        }
+
+        Assert.assertTrue("No query succeeded: " + firstError.get(), errors.get() < tasks);
+        long nanos = Math.max(1, end - start);
+        metrics.put("tasks", tasks);
+        metrics.put("connections", dataSource.getMaxConnections());
+        metrics.put("loadMillis", nanos / 1_000_000);
+        metrics.put("loadOpsPerSecond", (tasks - errors.get()) * 1_000_000_000L / nanos);
+        metrics.put("errors", errors.get());
+        if (firstError.get() != null) {
+            metrics.put("firstError", firstError.get());
+        }
+        metrics.put("pinnedEvents", pinnedEvents.get());
+        metrics.put("pinnedMicros", pinnedNanos.get() / 1000);
+        metrics.put("pinnedFrames", getTopFrames(pinnedFrames, 5));
+    }
+
+    /**
+     * Returns the topmost provider or driver frame of the pinned thread, which is where it blocked or the closest caller that did.
+     */
+    private static String getPinningFrame(RecordedEvent event) {
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            for (String prefix : PACKAGES) {
+                if (type.startsWith(prefix)) {
+                    return type + "." + frame.getMethod().getName();
+                }
+            }
+        }
+        return "other";
+    }
+
+    private static String getTopFrames(Map<String, Integer> frames, int limit) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(new TreeMap<>(frames).entrySet());
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            sb.append(sb.length() == 0 ? "" : ", ").append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return sb.toString();
+    }
+}
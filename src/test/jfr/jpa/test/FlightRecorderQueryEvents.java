@@ -0,0 +1,118 @@
+package jpa.test;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+
+/**
+ * The {@link QueryEvents} of the <code>jfr</code> profile, which emits them as flight recorder events
+ * and starts a recording on the first event that is dumped to <code>jfr.directory</code> when the run ends.
+ */
+final class FlightRecorderQueryEvents implements QueryEvents.Recorder {
+
+    private final ThreadLocal<QueryEvent> current = new ThreadLocal<>();
+    private Recording recording;
+
+    @Override
+    public Object begin(String phase, String testName, String strategy, String jpql) {
+        start();
+        QueryEvent event = QueryEvents.CREATE_QUERY.equals(phase) ? new CreateQueryEvent() : new ExecuteQueryEvent();
+        event.testName = testName;
+        event.strategy = strategy;
+        event.provider = JpaProvider.NAME;
+        event.jpql = jpql;
+        event.begin();
+        if (event instanceof ExecuteQueryEvent) {
+            current.set(event);
+        }
+        return event;
+    }
+
+    @Override
+    public void end(Object event) {
+        QueryEvent currentEvent = current.get();
+        if (currentEvent != null && event instanceof ExecuteQueryEvent) {
+            // The hydration that replaced the execution
+            current.remove();
+            currentEvent.commit();
+        } else {
+            ((QueryEvent) event).commit();
+        }
+    }
+
+    @Override
+    public void statementExecuted() {
+        QueryEvent currentEvent = current.get();
+        if (currentEvent instanceof ExecuteQueryEvent) {
+            currentEvent.commit();
+            HydrationEvent hydration = new HydrationEvent();
+            hydration.testName = currentEvent.testName;
+            hydration.strategy = currentEvent.strategy;
+            hydration.provider = currentEvent.provider;
+            hydration.jpql = currentEvent.jpql;
+            hydration.begin();
+            current.set(hydration);
+        }
+    }
+
+    /**
+     * Starts the recording of the run on the first event, the file is named like the runs of the performance history.
+     */
+    private synchronized void start() {
+        if (recording != null) {
+            return;
+        }
+
+        try {
+            File directory = new File(System.getProperty("jfr.directory", "target/jfr"));
+            directory.mkdirs();
+            String run = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+            recording = new Recording(Configuration.getConfiguration("profile"));
+            recording.setName("treat-queries");
+            recording.setDestination(new File(directory, "treat-queries-" + JpaProvider.NAME + "-" + run + ".jfr").toPath());
+            recording.setDumpOnExit(true);
+            recording.start();
+        } catch (IOException | ParseException ex) {
+            throw new IllegalStateException("Couldn't start the flight recording", ex);
+        }
+    }
+
+    @Category({ "JPA", "Treat Variations" })
+    abstract static class QueryEvent extends Event {
+        @Label("Test")
+        String testName;
+        @Label("Strategy")
+        String strategy;
+        @Label("Provider")
+        String provider;
+        @Label("JPQL")
+        String jpql;
+    }
+
+    @Name("jpa.test.CreateQuery")
+    @Label("Create Query")
+    @Description("Parsing and translating the JPQL of a query")
+    static class CreateQueryEvent extends QueryEvent {
+    }
+
+    @Name("jpa.test.ExecuteQuery")
+    @Label("Execute Query")
+    @Description("The getResultList call of a query until its SQL is executed, the whole call if the provider doesn't report statements")
+    static class ExecuteQueryEvent extends QueryEvent {
+    }
+
+    @Name("jpa.test.Hydration")
+    @Label("Hydration")
+    @Description("Building the results of a query after its SQL is executed, including the statements of eagerly loaded associations")
+    static class HydrationEvent extends QueryEvent {
+    }
+}